@@ -3,13 +3,36 @@ package com.n26;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
 
 import java.time.Clock;
+import java.util.Locale;
 
 @SpringBootApplication
 public class App {
+
+    /**
+     * Starts {@link FastStartApp} instead, when set on the command line, as a system property or in the environment
+     */
+    static final String FAST_START_PROPERTY = "transaction.fast-start";
+
     public static void main(String[] args) {
-        SpringApplication.run(App.class, args);
+        SpringApplication.run(isEnabled(FAST_START_PROPERTY, args) ? FastStartApp.class : App.class, args);
+    }
+
+    /**
+     * Reads a switch before the application, and thus the logging, is configured, so the environment of the
+     * application cannot be used: it would log at debug level while logging is not configured yet
+     */
+    static boolean isEnabled(String property, String[] args) {
+        String value = new SimpleCommandLinePropertySource(args).getProperty(property);
+        if (value == null) {
+            value = System.getProperty(property);
+        }
+        if (value == null) {
+            value = System.getenv(property.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_'));
+        }
+        return Boolean.parseBoolean(value);
     }
 
     @Bean
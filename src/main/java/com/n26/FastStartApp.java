@@ -0,0 +1,70 @@
+package com.n26;
+
+import com.n26.config.AdmissionConfiguration;
+import com.n26.config.CdsTrainingConfiguration;
+import com.n26.config.IngestConfiguration;
+import com.n26.config.LazyInitializationBeanFactoryPostProcessor;
+import com.n26.config.ReplicationConfiguration;
+import com.n26.config.RepositoryConfiguration;
+import com.n26.controller.StatisticsController;
+import com.n26.controller.TransactionController;
+import com.n26.controller.helper.AppExceptionHandler;
+import com.n26.service.impl.StatisticsServiceImpl;
+import com.n26.service.impl.TransactionServiceImpl;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthIndicatorAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.servlet.ServletManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.error.ErrorMvcAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Clock;
+
+/**
+ * Application started by {@link App} in fast-start mode: the components are registered explicitly instead of being
+ * scanned, only the auto-configurations the service needs are applied, and beans are initialized lazily. The
+ * transaction endpoints and the health, metrics and admission actuator endpoints are the same as in {@link App}, but
+ * the JVM, Tomcat and HTTP request metrics are not recorded.
+ * <p>
+ * This class is deliberately not a {@code @Configuration}, so that neither the component scan of {@link App} nor the
+ * tests looking up the application configuration pick it up.
+ */
+@Import({RepositoryConfiguration.class, ReplicationConfiguration.class, AdmissionConfiguration.class,
+        IngestConfiguration.class, CdsTrainingConfiguration.class, TransactionServiceImpl.class,
+        StatisticsServiceImpl.class, TransactionController.class, StatisticsController.class,
+        AppExceptionHandler.class})
+@ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, ConfigurationPropertiesAutoConfiguration.class,
+        ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class,
+        ErrorMvcAutoConfiguration.class, MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class,
+        CompositeMeterRegistryAutoConfiguration.class, EndpointAutoConfiguration.class,
+        WebEndpointAutoConfiguration.class, HealthIndicatorAutoConfiguration.class,
+        HealthEndpointAutoConfiguration.class, MetricsEndpointAutoConfiguration.class,
+        ManagementContextAutoConfiguration.class, ServletManagementContextAutoConfiguration.class})
+public class FastStartApp {
+
+    @Bean
+    public static LazyInitializationBeanFactoryPostProcessor lazyInitializationBeanFactoryPostProcessor() {
+        return new LazyInitializationBeanFactoryPostProcessor();
+    }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
@@ -0,0 +1,24 @@
+package com.n26.admission;
+
+/**
+ * Numbers of transactions admitted and rejected for a client
+ */
+public class AdmissionCounts {
+
+    private final long accepted;
+
+    private final long rejected;
+
+    public AdmissionCounts(long accepted, long rejected) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+}
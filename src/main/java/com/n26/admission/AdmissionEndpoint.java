@@ -0,0 +1,24 @@
+package com.n26.admission;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting the numbers of transactions admitted and rejected per client
+ */
+@Endpoint(id = "admission")
+public class AdmissionEndpoint {
+
+    private final ClientRateLimiter rateLimiter;
+
+    public AdmissionEndpoint(ClientRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @ReadOperation
+    public Map<String, AdmissionCounts> clients() {
+        return rateLimiter.getCounts();
+    }
+}
@@ -0,0 +1,110 @@
+package com.n26.admission;
+
+/**
+ * Settings of the admission control of the ingest, bound from the {@code transaction.admission} properties
+ */
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Header identifying the client of a request; requests without it are identified by their source address
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Sustained number of transactions per second admitted from a single client
+     */
+    private long ratePerSecond = 1000;
+
+    /**
+     * Number of transactions a client which was idle may send at once, above its sustained rate
+     */
+    private long burst = 1000;
+
+    /**
+     * Number of clients tracked at once; clients arriving while all the tracked ones are active share the limits of
+     * {@code untrackedClientStripes}
+     */
+    private int maxClients = 10000;
+
+    /**
+     * Number of limits shared by the untracked clients, each client being assigned one by the hash of its identifier
+     */
+    private int untrackedClientStripes = 64;
+
+    /**
+     * Duration in milli seconds after which a client whose limit is fully replenished is no longer tracked, which is
+     * also the interval at which such clients are looked for
+     */
+    private long idleEvictionInMs = 60000;
+
+    /**
+     * Number of transactions processed at once, beyond which requests are shed
+     */
+    private int maxConcurrentRequests = 256;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public void setClientHeader(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    public long getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(long ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public long getBurst() {
+        return burst;
+    }
+
+    public void setBurst(long burst) {
+        this.burst = burst;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public int getUntrackedClientStripes() {
+        return untrackedClientStripes;
+    }
+
+    public void setUntrackedClientStripes(int untrackedClientStripes) {
+        this.untrackedClientStripes = untrackedClientStripes;
+    }
+
+    public long getIdleEvictionInMs() {
+        return idleEvictionInMs;
+    }
+
+    public void setIdleEvictionInMs(long idleEvictionInMs) {
+        this.idleEvictionInMs = idleEvictionInMs;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+}
@@ -0,0 +1,148 @@
+package com.n26.admission;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of transactions of every client with a {@link TokenBucket} of its own. Admitting a transaction of a
+ * tracked client is a map lookup and a compare-and-set, without locking or allocating.
+ * <p>
+ * At most {@link AdmissionProperties#getMaxClients()} clients are tracked, and the clients idle for longer than {@link
+ * AdmissionProperties#getIdleEvictionInMs()} are evicted along with their counts by a background sweep at that
+ * interval. A new client arriving while the map is full shares the limit of the untracked clients whose identifiers
+ * hash to the same of {@link AdmissionProperties#getUntrackedClientStripes()} stripes, so that a runaway untracked
+ * client only starves the few others of its stripe.
+ */
+public class ClientRateLimiter implements Closeable {
+
+    /**
+     * Key under which the counts of the untracked clients are reported
+     */
+    public static final String UNTRACKED_CLIENTS = "*";
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final TokenBucket[] untrackedClientBuckets;
+
+    private final long ratePerSecond;
+
+    private final long burst;
+
+    private final int maxClients;
+
+    private final long idleEvictionInMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "admission-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ClientRateLimiter(AdmissionProperties properties) {
+        this(properties, System.nanoTime());
+    }
+
+    ClientRateLimiter(AdmissionProperties properties, long nowInNanos) {
+        if (properties.getUntrackedClientStripes() < 1) {
+            throw new IllegalArgumentException("Untracked client stripes must be positive but were "
+                    + properties.getUntrackedClientStripes());
+        }
+        this.ratePerSecond = properties.getRatePerSecond();
+        this.burst = properties.getBurst();
+        this.maxClients = properties.getMaxClients();
+        this.idleEvictionInMs = properties.getIdleEvictionInMs();
+        this.untrackedClientBuckets = new TokenBucket[properties.getUntrackedClientStripes()];
+        for (int i = 0; i < untrackedClientBuckets.length; i++) {
+            untrackedClientBuckets[i] = new TokenBucket(ratePerSecond, burst, nowInNanos);
+        }
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::evictIdleClients, idleEvictionInMs, idleEvictionInMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Admits a transaction of the client when its rate allows, counting it as accepted or rejected
+     */
+    public boolean tryAcquire(String clientId) {
+        return tryAcquire(clientId, System.nanoTime());
+    }
+
+    boolean tryAcquire(String clientId, long nowInNanos) {
+        return bucketOf(clientId, nowInNanos).tryAcquire(nowInNanos);
+    }
+
+    /**
+     * Counts a transaction of the client rejected before its rate was checked, with the untracked clients if the
+     * client is not tracked
+     */
+    public void recordRejection(String clientId) {
+        final TokenBucket bucket = buckets.get(clientId);
+        if (bucket != null) {
+            bucket.recordRejection();
+        } else {
+            untrackedClientBuckets[untrackedStripeOf(clientId)].recordRejection();
+        }
+    }
+
+    /**
+     * Returns the counts of every tracked client, and the total of the untracked ones under {@link
+     * #UNTRACKED_CLIENTS}
+     */
+    public Map<String, AdmissionCounts> getCounts() {
+        final Map<String, AdmissionCounts> counts = new TreeMap<>();
+        buckets.forEach((clientId, bucket) -> counts.put(clientId, bucket.getCounts()));
+        long accepted = 0;
+        long rejected = 0;
+        for (TokenBucket bucket : untrackedClientBuckets) {
+            final AdmissionCounts stripeCounts = bucket.getCounts();
+            accepted += stripeCounts.getAccepted();
+            rejected += stripeCounts.getRejected();
+        }
+        counts.put(UNTRACKED_CLIENTS, new AdmissionCounts(accepted, rejected));
+        return counts;
+    }
+
+    int getTrackedClientCount() {
+        return buckets.size();
+    }
+
+    void evictIdleClients() {
+        evictIdleClients(System.nanoTime());
+    }
+
+    /**
+     * Stops tracking the clients idle for longer than {@link AdmissionProperties#getIdleEvictionInMs()}
+     */
+    void evictIdleClients(long nowInNanos) {
+        final long idleEvictionInNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionInMs);
+        buckets.values().removeIf(bucket -> bucket.isIdle(nowInNanos, idleEvictionInNanos));
+    }
+
+    int untrackedStripeOf(String clientId) {
+        final int hash = clientId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), untrackedClientBuckets.length);
+    }
+
+    private TokenBucket bucketOf(String clientId, long nowInNanos) {
+        final TokenBucket bucket = buckets.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            return untrackedClientBuckets[untrackedStripeOf(clientId)];
+        }
+        return buckets.computeIfAbsent(clientId, id -> new TokenBucket(ratePerSecond, burst, nowInNanos));
+    }
+}
@@ -0,0 +1,40 @@
+package com.n26.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of transactions processed at once, so that excess load is shed instead of queueing up
+ */
+public class ConcurrencyLimiter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final int maxConcurrentRequests;
+
+    public ConcurrencyLimiter(AdmissionProperties properties) {
+        if (properties.getMaxConcurrentRequests() < 1) {
+            throw new IllegalArgumentException("Concurrent requests must be positive but were "
+                    + properties.getMaxConcurrentRequests());
+        }
+        this.maxConcurrentRequests = properties.getMaxConcurrentRequests();
+    }
+
+    /**
+     * Takes a slot when one is free; every successful call must be followed by {@link #release()}
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > maxConcurrentRequests) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
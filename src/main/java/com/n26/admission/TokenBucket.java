@@ -0,0 +1,63 @@
+package com.n26.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limit of a single client, implemented as the generic cell rate algorithm: instead of a token count refilled
+ * over time it keeps the theoretical arrival time of the next transaction, which advances by one emission interval
+ * per admitted transaction and may run ahead of the current time by at most the burst. The whole state is one
+ * {@link AtomicLong}, so admitting a transaction is a single compare-and-set.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrivalTime;
+
+    private final long emissionIntervalInNanos;
+
+    private final long burstToleranceInNanos;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    TokenBucket(long ratePerSecond, long burst, long nowInNanos) {
+        if (ratePerSecond < 1 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive but were " + ratePerSecond + " and "
+                    + burst);
+        }
+        this.emissionIntervalInNanos = Math.max(1, 1_000_000_000L / ratePerSecond);
+        this.burstToleranceInNanos = (burst - 1) * emissionIntervalInNanos;
+        this.theoreticalArrivalTime = new AtomicLong(nowInNanos);
+    }
+
+    boolean tryAcquire(long nowInNanos) {
+        while (true) {
+            final long arrivalTime = theoreticalArrivalTime.get();
+            final long earliestArrivalTime = arrivalTime - nowInNanos > 0 ? arrivalTime : nowInNanos;
+            if (earliestArrivalTime - nowInNanos > burstToleranceInNanos) {
+                rejected.increment();
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(arrivalTime, earliestArrivalTime + emissionIntervalInNanos)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    void recordRejection() {
+        rejected.increment();
+    }
+
+    /**
+     * Whether the limit has been fully replenished for longer than the given duration
+     */
+    boolean isIdle(long nowInNanos, long idleDurationInNanos) {
+        return nowInNanos - theoreticalArrivalTime.get() > idleDurationInNanos;
+    }
+
+    AdmissionCounts getCounts() {
+        return new AdmissionCounts(accepted.sum(), rejected.sum());
+    }
+}
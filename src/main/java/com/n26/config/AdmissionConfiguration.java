@@ -0,0 +1,61 @@
+package com.n26.config;
+
+import com.n26.admission.AdmissionEndpoint;
+import com.n26.admission.AdmissionProperties;
+import com.n26.admission.ClientRateLimiter;
+import com.n26.admission.ConcurrencyLimiter;
+import com.n26.controller.helper.AdmissionInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the ingest of transactions behind the {@link AdmissionInterceptor}, unless {@code
+ * transaction.admission.enabled} is false
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionConfiguration(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "transaction.admission")
+    public AdmissionProperties admissionProperties() {
+        return new AdmissionProperties();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ClientRateLimiter clientRateLimiter() {
+        return new ClientRateLimiter(admissionProperties());
+    }
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return new ConcurrencyLimiter(admissionProperties());
+    }
+
+    @Bean
+    public AdmissionInterceptor admissionInterceptor() {
+        return new AdmissionInterceptor(clientRateLimiter(), concurrencyLimiter(), admissionProperties(),
+                meterRegistry);
+    }
+
+    @Bean
+    public AdmissionEndpoint admissionEndpoint() {
+        return new AdmissionEndpoint(clientRateLimiter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor()).addPathPatterns("/transactions");
+    }
+}
@@ -0,0 +1,54 @@
+package com.n26.config;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stops the application as soon as it started and answered a {@code POST /transactions} and a {@code GET
+ * /statistics}, so that the {@code cds} profile of the build records the classes loaded to start and to serve the
+ * first requests
+ */
+@Configuration
+@Profile("cds")
+public class CdsTrainingConfiguration {
+
+    @Bean
+    public ApplicationRunner cdsTrainingRunner(ConfigurableApplicationContext context) {
+        return args -> {
+            sendFirstRequests("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+
+    private static void sendFirstRequests(String baseUrl) throws IOException {
+        final HttpURLConnection post = (HttpURLConnection) new URL(baseUrl + "/transactions").openConnection();
+        post.setRequestMethod("POST");
+        post.setDoOutput(true);
+        post.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = post.getOutputStream()) {
+            out.write(("{\"amount\":12.3,\"timestamp\":" + System.currentTimeMillis() + "}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        checkStatus(post, HttpURLConnection.HTTP_CREATED);
+        checkStatus((HttpURLConnection) new URL(baseUrl + "/statistics").openConnection(), HttpURLConnection.HTTP_OK);
+    }
+
+    private static void checkStatus(HttpURLConnection connection, int expectedStatus) throws IOException {
+        final int status = connection.getResponseCode();
+        connection.disconnect();
+        if (status != expectedStatus) {
+            throw new IllegalStateException(connection.getRequestMethod() + " " + connection.getURL() + " answered "
+                    + status);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.n26.config;
+
+import com.n26.ingest.IngestProperties;
+import com.n26.ingest.TransactionLogIngester;
+import com.n26.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Ingests the transaction logs of {@code transaction.ingest.directory}, when it is set
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.ingest", name = "directory")
+public class IngestConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "transaction.ingest")
+    public IngestProperties ingestProperties() {
+        return new IngestProperties();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public TransactionLogIngester transactionLogIngester(TransactionRepository transactionRepository,
+                                                         IngestProperties properties, Clock clock,
+                                                         MeterRegistry meterRegistry) {
+        return new TransactionLogIngester(transactionRepository, properties, clock, meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.n26.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+
+/**
+ * Makes every bean lazily initialized, so that only the beans needed to serve requests are created, when first
+ * needed. Beans with an init method are background components, which are left eager so that they start with the
+ * application.
+ */
+public class LazyInitializationBeanFactoryPostProcessor implements BeanFactoryPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            final BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+            if (beanDefinition instanceof AbstractBeanDefinition
+                    && ((AbstractBeanDefinition) beanDefinition).getInitMethodName() != null) {
+                continue;
+            }
+            beanDefinition.setLazyInit(true);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.n26.config;
+
+import com.n26.replication.ReplicationProperties;
+import com.n26.replication.ReplicationPublisher;
+import com.n26.replication.ReplicationReceiver;
+import com.n26.repository.RepositoryProperties;
+import com.n26.repository.impl.ReplicatingTransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Replaces the transaction repository by a {@link ReplicatingTransactionRepository} when the instance is either the
+ * primary or the replica of a replicated pair, as set by {@code transaction.replication.role}
+ */
+@Configuration
+public class ReplicationConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "transaction.replication")
+    public ReplicationProperties replicationProperties() {
+        return new ReplicationProperties();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "transaction.replication", name = "role", havingValue = "primary")
+    static class PrimaryConfiguration {
+
+        @Bean
+        public ReplicatingTransactionRepository transactionRepository(RepositoryProperties properties) {
+            return new ReplicatingTransactionRepository(properties, false);
+        }
+
+        @Bean(initMethod = "start", destroyMethod = "close")
+        public ReplicationPublisher replicationPublisher(ReplicatingTransactionRepository transactionRepository,
+                                                        ReplicationProperties properties,
+                                                        MeterRegistry meterRegistry) {
+            return new ReplicationPublisher(transactionRepository, properties, meterRegistry);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "transaction.replication", name = "role", havingValue = "replica")
+    static class ReplicaConfiguration {
+
+        @Bean
+        public ReplicatingTransactionRepository transactionRepository(RepositoryProperties properties) {
+            return new ReplicatingTransactionRepository(properties, true);
+        }
+
+        @Bean(initMethod = "start", destroyMethod = "close")
+        public ReplicationReceiver replicationReceiver(ReplicatingTransactionRepository transactionRepository,
+                                                      ReplicationProperties properties, Clock clock,
+                                                      MeterRegistry meterRegistry) {
+            return new ReplicationReceiver(transactionRepository, properties, clock, meterRegistry);
+        }
+    }
+}
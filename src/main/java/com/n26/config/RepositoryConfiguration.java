@@ -0,0 +1,26 @@
+package com.n26.config;
+
+import com.n26.repository.RepositoryProperties;
+import com.n26.repository.TransactionRepository;
+import com.n26.repository.impl.ShardedTransactionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RepositoryConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "transaction.repository")
+    public RepositoryProperties repositoryProperties() {
+        return new RepositoryProperties();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "transaction.replication", name = "role", havingValue = "none",
+            matchIfMissing = true)
+    public TransactionRepository transactionRepository(RepositoryProperties properties) {
+        return new ShardedTransactionRepository(properties);
+    }
+}
@@ -1,12 +1,19 @@
 package com.n26.controller;
 
+import com.n26.controller.helper.BucketStatisticsPacker;
 import com.n26.repository.NoRecordedTransactionException;
+import com.n26.service.OutOfRetentionException;
 import com.n26.service.StatisticsService;
 import com.n26.vo.StatisticsVO;
+import com.n26.vo.TransactionVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
+import java.util.List;
+
 @RestController
 public class StatisticsController {
 
@@ -18,8 +25,30 @@ public class StatisticsController {
     }
 
     @GetMapping(value = "/statistics")
-    public StatisticsVO getStatistics() throws NoRecordedTransactionException {
-        return statisticsService.getStatistics();
+    public StatisticsVO getStatistics(@RequestParam(value = "at", required = false) final Long atEpochMillis)
+            throws NoRecordedTransactionException, OutOfRetentionException {
+        if (atEpochMillis == null) {
+            return statisticsService.getStatistics();
+        }
+        return statisticsService.getStatistics(Instant.ofEpochMilli(atEpochMillis));
+    }
+
+    @GetMapping(value = "/statistics/largest")
+    public List<TransactionVO> getLargestTransactions(
+            @RequestParam(value = "at", required = false) final Long atEpochMillis) throws OutOfRetentionException {
+        if (atEpochMillis == null) {
+            return statisticsService.getLargestTransactions();
+        }
+        return statisticsService.getLargestTransactions(Instant.ofEpochMilli(atEpochMillis));
+    }
+
+    @GetMapping(value = "/statistics/buckets", produces = BucketStatisticsPacker.MEDIA_TYPE)
+    public byte[] getBucketStatistics(@RequestParam(value = "at", required = false) final Long atEpochMillis)
+            throws OutOfRetentionException {
+        if (atEpochMillis == null) {
+            return BucketStatisticsPacker.pack(statisticsService.getBucketStatistics());
+        }
+        return BucketStatisticsPacker.pack(statisticsService.getBucketStatistics(Instant.ofEpochMilli(atEpochMillis)));
     }
 
 }
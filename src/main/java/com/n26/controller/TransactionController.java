@@ -1,11 +1,12 @@
 package com.n26.controller;
 
-import com.n26.service.StaleTransactionException;
 import com.n26.service.TransactionService;
+import com.n26.service.TransactionValidationResult;
 import com.n26.vo.TransactionVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -21,8 +22,14 @@ public class TransactionController {
     }
 
     @PostMapping(value = "/transactions")
-    public ResponseEntity saveTransaction(@RequestBody final TransactionVO transactionVO) throws StaleTransactionException {
-        transactionService.save(transactionVO);
-        return new ResponseEntity(HttpStatus.CREATED);
+    public ResponseEntity saveTransaction(@RequestBody final TransactionVO transactionVO) {
+        final TransactionValidationResult result = transactionService.save(transactionVO);
+        return new ResponseEntity(result.isAccepted() ? HttpStatus.CREATED : HttpStatus.NO_CONTENT);
+    }
+
+    @DeleteMapping(value = "/transactions")
+    public ResponseEntity deleteTransactions() {
+        transactionService.deleteAll();
+        return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
 }
@@ -0,0 +1,86 @@
+package com.n26.controller.helper;
+
+import com.n26.admission.AdmissionProperties;
+import com.n26.admission.ClientRateLimiter;
+import com.n26.admission.ConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Admits the transactions posted to the controller, answering 429 before the request is handled when too many
+ * transactions are processed at once or when the client exceeds its rate. The concurrency is checked first, so that
+ * shedding load costs no more than an atomic increment.
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    static final String REJECTED_ADMISSIONS_METRIC = "admission.rejected";
+
+    private final ClientRateLimiter rateLimiter;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final String clientHeader;
+
+    private final Counter overloadedRejections;
+
+    private final Counter rateLimitedRejections;
+
+    public AdmissionInterceptor(ClientRateLimiter rateLimiter, ConcurrencyLimiter concurrencyLimiter,
+                                AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientHeader = properties.getClientHeader();
+        this.overloadedRejections = meterRegistry.counter(REJECTED_ADMISSIONS_METRIC, "reason", "overloaded");
+        this.rateLimitedRejections = meterRegistry.counter(REJECTED_ADMISSIONS_METRIC, "reason", "rate_limited");
+        meterRegistry.gauge("admission.in_flight", concurrencyLimiter, ConcurrencyLimiter::getInFlight);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        final String clientId = clientIdOf(request);
+        if (!concurrencyLimiter.tryAcquire()) {
+            rateLimiter.recordRejection(clientId);
+            overloadedRejections.increment();
+            reject(response);
+            return false;
+        }
+        if (!rateLimiter.tryAcquire(clientId)) {
+            concurrencyLimiter.release();
+            rateLimitedRejections.increment();
+            reject(response);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Only invoked when {@link #preHandle} admitted the request
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            concurrencyLimiter.release();
+        }
+    }
+
+    private String clientIdOf(HttpServletRequest request) {
+        final String clientId = request.getHeader(clientHeader);
+        return clientId != null ? clientId : request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+    }
+}
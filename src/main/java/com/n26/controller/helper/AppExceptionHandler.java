@@ -1,7 +1,9 @@
 package com.n26.controller.helper;
 
 import com.n26.repository.NoRecordedTransactionException;
-import com.n26.service.StaleTransactionException;
+import com.n26.repository.ReadOnlyRepositoryException;
+import com.n26.service.OutOfRetentionException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,14 +11,19 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 @ControllerAdvice
 public class AppExceptionHandler {
 
-    @ExceptionHandler(StaleTransactionException.class)
-    public ResponseEntity handleStaleTransactionException(StaleTransactionException ex) {
-        return ResponseEntity.noContent().build();
-    }
-
     @ExceptionHandler(NoRecordedTransactionException.class)
     public ResponseEntity handleNoRecordedTransactionException(NoRecordedTransactionException ex) {
         return ResponseEntity.notFound().build();
     }
 
+    @ExceptionHandler(OutOfRetentionException.class)
+    public ResponseEntity handleOutOfRetentionException(OutOfRetentionException ex) {
+        return ResponseEntity.badRequest().build();
+    }
+
+    @ExceptionHandler(ReadOnlyRepositoryException.class)
+    public ResponseEntity handleReadOnlyRepositoryException(ReadOnlyRepositoryException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
 }
@@ -0,0 +1,35 @@
+package com.n26.controller.helper;
+
+import com.n26.model.BucketStatistics;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Packs bucket statistics into an array of fixed-size big-endian records, each made of the start of the bucket in
+ * epoch milli seconds (long), its width in milli seconds (int), the count (long), and the sum, minimum, maximum and
+ * squared deviations of the amounts (doubles)
+ */
+public final class BucketStatisticsPacker {
+
+    public static final String MEDIA_TYPE = "application/octet-stream";
+
+    public static final int RECORD_SIZE = 2 * Long.BYTES + Integer.BYTES + 4 * Double.BYTES;
+
+    private BucketStatisticsPacker() {
+    }
+
+    public static byte[] pack(List<BucketStatistics> buckets) {
+        final ByteBuffer buffer = ByteBuffer.allocate(buckets.size() * RECORD_SIZE);
+        for (BucketStatistics bucket : buckets) {
+            buffer.putLong(bucket.getStartInMs())
+                    .putInt(bucket.getWidthInMs())
+                    .putLong(bucket.getCount())
+                    .putDouble(bucket.getSum())
+                    .putDouble(bucket.getMin())
+                    .putDouble(bucket.getMax())
+                    .putDouble(bucket.getSquaredDeviations());
+        }
+        return buffer.array();
+    }
+}
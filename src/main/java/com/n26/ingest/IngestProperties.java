@@ -0,0 +1,59 @@
+package com.n26.ingest;
+
+/**
+ * Settings of the ingestion of transaction log files, bound from the {@code transaction.ingest} properties
+ */
+public class IngestProperties {
+
+    /**
+     * Directory whose {@code .csv} and {@code .bin} files are ingested; the ingestion is disabled when not set
+     */
+    private String directory;
+
+    /**
+     * File recording how far every log file has been ingested, {@code .ingest-checkpoint} in the directory by default
+     */
+    private String checkpointFile;
+
+    /**
+     * Interval in milli seconds at which the directory is scanned for new or grown files
+     */
+    private long pollIntervalInMs = 100;
+
+    /**
+     * Largest region of a file mapped into memory at once
+     */
+    private int maxMappedBytes = 64 * 1024 * 1024;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    public long getPollIntervalInMs() {
+        return pollIntervalInMs;
+    }
+
+    public void setPollIntervalInMs(long pollIntervalInMs) {
+        this.pollIntervalInMs = pollIntervalInMs;
+    }
+
+    public int getMaxMappedBytes() {
+        return maxMappedBytes;
+    }
+
+    public void setMaxMappedBytes(int maxMappedBytes) {
+        this.maxMappedBytes = maxMappedBytes;
+    }
+}
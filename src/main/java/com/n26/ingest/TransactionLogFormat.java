@@ -0,0 +1,182 @@
+package com.n26.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Record formats of the transaction logs, recognized by the file extension. Both read the records straight out of
+ * the buffer and only ever consume complete records, so that a record being appended is read on the next attempt.
+ */
+public enum TransactionLogFormat {
+
+    /**
+     * Lines of {@code amount,timestamp}, e.g. {@code 12.3343,1478192204000}. Lines which do not parse, such as a
+     * header, are reported as malformed and skipped.
+     */
+    CSV(".csv") {
+        @Override
+        public int parse(ByteBuffer buffer, TransactionRecordHandler handler) {
+            final int start = buffer.position();
+            int lineStart = start;
+            for (int i = start; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    parseLine(buffer, lineStart, i, handler);
+                    lineStart = i + 1;
+                }
+            }
+            return lineStart - start;
+        }
+    },
+
+    /**
+     * Records of {@value #BINARY_RECORD_SIZE} bytes: the amount as a big-endian IEEE 754 double followed by the
+     * timestamp as a big-endian long
+     */
+    BINARY(".bin") {
+        @Override
+        public int parse(ByteBuffer buffer, TransactionRecordHandler handler) {
+            final int start = buffer.position();
+            final int end = start + (buffer.remaining() / BINARY_RECORD_SIZE) * BINARY_RECORD_SIZE;
+            for (int i = start; i < end; i += BINARY_RECORD_SIZE) {
+                handler.onRecord(buffer.getDouble(i), buffer.getLong(i + Double.BYTES));
+            }
+            return end - start;
+        }
+    };
+
+    public static final int BINARY_RECORD_SIZE = Double.BYTES + Long.BYTES;
+
+    /**
+     * Decimal amounts with up to this many digits are parsed exactly by a single division
+     */
+    private static final int MAX_FAST_PATH_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15};
+
+    private final String extension;
+
+    TransactionLogFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Passes the complete records from the position to the limit of the buffer to the handler, leaving the position
+     * untouched, and returns the number of bytes they take
+     */
+    public abstract int parse(ByteBuffer buffer, TransactionRecordHandler handler);
+
+    /**
+     * Returns the format of the file with given name, or {@code null} when it is not a transaction log
+     */
+    public static TransactionLogFormat of(String fileName) {
+        for (TransactionLogFormat format : values()) {
+            if (fileName.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static void parseLine(ByteBuffer buffer, int start, int end, TransactionRecordHandler handler) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        int separator = start;
+        while (separator < end && buffer.get(separator) != ',') {
+            separator++;
+        }
+        final double amount = parseAmount(buffer, start, separator);
+        final long timestamp = separator < end ? parseTimestamp(buffer, separator + 1, end) : -1;
+        if (!Double.isFinite(amount) || timestamp < 0) {
+            handler.onMalformedRecord();
+        } else {
+            handler.onRecord(amount, timestamp);
+        }
+    }
+
+    /**
+     * Parses a plain decimal without allocating, falling back to {@link Double#parseDouble} for long or exponent
+     * notations; returns {@code NaN} when the field is not a number
+     */
+    private static double parseAmount(ByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        int i = start;
+        final boolean negative = i < end && buffer.get(i) == '-';
+        if (negative || (i < end && buffer.get(i) == '+')) {
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits = digits * 10 + (b - '0');
+                digitCount++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == end && digitCount > 0 && digitCount <= MAX_FAST_PATH_DIGITS) {
+            final double amount = fractionDigits > 0 ? digits / POWERS_OF_TEN[fractionDigits] : digits;
+            return negative ? -amount : amount;
+        }
+        return parseAmountSlowly(buffer, start, end);
+    }
+
+    private static double parseAmountSlowly(ByteBuffer buffer, int start, int end) {
+        final byte[] field = new byte[end - start];
+        for (int i = 0; i < field.length; i++) {
+            field[i] = buffer.get(start + i);
+        }
+        try {
+            return Double.parseDouble(new String(field, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses a non-negative integer, returning -1 when the field is not one
+     */
+    private static long parseTimestamp(ByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long timestamp = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            timestamp = timestamp * 10 + (b - '0');
+        }
+        return timestamp;
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(ByteBuffer buffer, int start, int end) {
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+}
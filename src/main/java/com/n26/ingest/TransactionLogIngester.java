@@ -0,0 +1,293 @@
+package com.n26.ingest;
+
+import com.n26.repository.TransactionRepository;
+import com.n26.service.TransactionValidationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests the transactions appended to the log files of a directory, see {@link TransactionLogFormat}. The directory
+ * is scanned once every poll interval, and the part of every file beyond the offset ingested so far is memory-mapped
+ * and parsed in place, applying the same validation as the HTTP ingest.
+ * <p>
+ * The offsets are kept by the identity of the file rather than its name, i.e. its {@link
+ * BasicFileAttributes#fileKey() file key} where the file system has one, so that a file replaced by another of the
+ * same name is ingested from its start, as is a file which shrank. They are checkpointed after every poll which made
+ * progress, so a restart resumes where the previous run stopped; transactions ingested after the last checkpoint are
+ * ingested again. The offsets of the files no longer in the directory are dropped.
+ * <p>
+ * A CSV line longer than the largest mapped region is skipped and counted as malformed.
+ */
+public class TransactionLogIngester implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogIngester.class);
+
+    private static final String DEFAULT_CHECKPOINT_FILE = ".ingest-checkpoint";
+
+    private final TransactionRepository repository;
+
+    private final Clock clock;
+
+    private final Path directory;
+
+    private final Path checkpointFile;
+
+    private final long pollIntervalInMs;
+
+    private final int maxMappedBytes;
+
+    /**
+     * Ingested offsets by the identity of their file, see {@link #identityOf}
+     */
+    private final Map<String, Long> offsets = new HashMap<>();
+
+    private final ValidatingHandler handler = new ValidatingHandler();
+
+    private final Map<TransactionValidationResult, Counter> recordCounters = new HashMap<>();
+
+    private final Counter malformedRecords;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "transaction-log-ingester");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionLogIngester(TransactionRepository repository, IngestProperties properties, Clock clock,
+                                  MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.clock = clock;
+        this.directory = Paths.get(properties.getDirectory());
+        this.checkpointFile = properties.getCheckpointFile() != null
+                ? Paths.get(properties.getCheckpointFile())
+                : directory.resolve(DEFAULT_CHECKPOINT_FILE);
+        this.pollIntervalInMs = properties.getPollIntervalInMs();
+        this.maxMappedBytes = properties.getMaxMappedBytes();
+        for (TransactionValidationResult result : TransactionValidationResult.values()) {
+            recordCounters.put(result, meterRegistry.counter("ingest.records", "result", result.getReason()));
+        }
+        this.malformedRecords = meterRegistry.counter("ingest.records", "result", "malformed");
+    }
+
+    public void start() throws IOException {
+        loadCheckpoint();
+        executor.scheduleWithFixedDelay(this::pollSafely, 0, pollIntervalInMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(pollIntervalInMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ingests the records appended since the previous poll and returns their number, malformed ones included
+     */
+    public synchronized long poll() throws IOException {
+        handler.reset(clock.millis(), repository.getTransactionValidityInMilliSeconds());
+        boolean progressed = false;
+        final Set<String> identities = new HashSet<>();
+        for (Path file : listLogFiles()) {
+            final String identity = identityOf(file);
+            identities.add(identity);
+            progressed |= ingest(file, identity, TransactionLogFormat.of(file.getFileName().toString()));
+        }
+        progressed |= offsets.keySet().retainAll(identities);
+        if (handler.accepted > 0) {
+            repository.removeStaleTransactions(clock.instant());
+        }
+        if (progressed) {
+            writeCheckpoint();
+        }
+        recordCounters.get(TransactionValidationResult.ACCEPTED).increment(handler.accepted);
+        recordCounters.get(TransactionValidationResult.STALE).increment(handler.stale);
+        recordCounters.get(TransactionValidationResult.IN_FUTURE).increment(handler.inFuture);
+        malformedRecords.increment(handler.malformed);
+        return handler.accepted + handler.stale + handler.inFuture + handler.malformed;
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not ingest transaction logs of {}", directory, e);
+        }
+    }
+
+    private List<Path> listLogFiles() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && TransactionLogFormat.of(file.getFileName().toString()) != null) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Returns the key of the file when the file system provides one, which stays the same when the file is renamed
+     * but differs for a file replacing it, or else its name and creation time
+     */
+    private static String identityOf(Path file) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.fileKey() != null) {
+            return attributes.fileKey().toString();
+        }
+        return file.getFileName() + "@" + attributes.creationTime().toMillis();
+    }
+
+    /**
+     * Ingests the complete records beyond the offset of the file, returning whether the offset moved
+     */
+    private boolean ingest(Path file, String identity, TransactionLogFormat format) throws IOException {
+        final long previousOffset = offsets.getOrDefault(identity, 0L);
+        long offset = previousOffset;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < offset) {
+                LOGGER.info("Transaction log {} shrank, ingesting it from its start", file);
+                offset = 0;
+            }
+            while (offset < size) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(size - offset, maxMappedBytes));
+                final int consumed = format.parse(buffer, handler);
+                if (consumed == 0) {
+                    if (buffer.limit() < maxMappedBytes) {
+                        break;
+                    }
+                    final long endOfLine = endOfLine(channel, offset + maxMappedBytes, size);
+                    if (endOfLine < 0) {
+                        break;
+                    }
+                    LOGGER.warn("Skipping line of {} bytes at offset {} of {}, longer than the {} bytes mapped at once",
+                            endOfLine - offset, offset, file, maxMappedBytes);
+                    handler.onMalformedRecord();
+                    offset = endOfLine;
+                } else {
+                    offset += consumed;
+                }
+            }
+        }
+        offsets.put(identity, offset);
+        return offset != previousOffset;
+    }
+
+    /**
+     * Returns the offset following the first line feed of the file at or after the given offset, or -1 when there is
+     * none yet
+     */
+    private long endOfLine(FileChannel channel, long offset, long size) throws IOException {
+        while (offset < size) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(size - offset, maxMappedBytes));
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += buffer.limit();
+        }
+        return -1;
+    }
+
+    void loadCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(checkpointFile, StandardCharsets.UTF_8)) {
+            final int separator = line.indexOf('\t');
+            if (separator > 0) {
+                offsets.put(line.substring(separator + 1), Long.parseLong(line.substring(0, separator)));
+            }
+        }
+    }
+
+    /**
+     * Writes the offsets to a temporary file first, which then replaces the checkpoint, so that a crash never leaves
+     * a partial checkpoint behind
+     */
+    private void writeCheckpoint() throws IOException {
+        final List<String> lines = new ArrayList<>(offsets.size());
+        offsets.forEach((identity, offset) -> lines.add(offset + "\t" + identity));
+        final Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+        Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Validates every record against the time of the poll and saves the accepted ones, counting the outcomes
+     */
+    private final class ValidatingHandler implements TransactionRecordHandler {
+
+        private long currentTimeInMs;
+        private long validityInMs;
+        private long accepted;
+        private long stale;
+        private long inFuture;
+        private long malformed;
+
+        void reset(long currentTimeInMs, long validityInMs) {
+            this.currentTimeInMs = currentTimeInMs;
+            this.validityInMs = validityInMs;
+            accepted = 0;
+            stale = 0;
+            inFuture = 0;
+            malformed = 0;
+        }
+
+        @Override
+        public void onRecord(double amount, long timestamp) {
+            switch (TransactionValidationResult.of(timestamp, currentTimeInMs, validityInMs)) {
+                case ACCEPTED:
+                    repository.save(amount, timestamp);
+                    accepted++;
+                    break;
+                case STALE:
+                    stale++;
+                    break;
+                default:
+                    inFuture++;
+            }
+        }
+
+        @Override
+        public void onMalformedRecord() {
+            malformed++;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.n26.ingest;
+
+/**
+ * Receives the records parsed out of a transaction log, as primitives so that parsing allocates nothing per record
+ */
+public interface TransactionRecordHandler {
+
+    void onRecord(double amount, long timestamp);
+
+    void onMalformedRecord();
+}
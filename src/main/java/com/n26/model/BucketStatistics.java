@@ -0,0 +1,98 @@
+package com.n26.model;
+
+/**
+ * Aggregates of the transactions recorded in a single time bucket, from which the statistics of any span covering
+ * whole buckets are obtained by merging
+ */
+public class BucketStatistics {
+
+    private final long startInMs;
+
+    private final int widthInMs;
+
+    private final long count;
+
+    private final double sum;
+
+    private final double min;
+
+    private final double max;
+
+    private final double squaredDeviations;
+
+    public BucketStatistics(long startInMs, int widthInMs, long count, double sum, double min, double max,
+                            double squaredDeviations) {
+        this.startInMs = startInMs;
+        this.widthInMs = widthInMs;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.squaredDeviations = squaredDeviations;
+    }
+
+    /**
+     * Returns the aggregates of the span from the start of the earlier bucket to the end of the later one, combining
+     * the squared deviations with Chan et al.'s parallel formula
+     */
+    public BucketStatistics merge(BucketStatistics other) {
+        final long startInMs = Math.min(this.startInMs, other.startInMs);
+        final long endInMs = Math.max(this.startInMs + this.widthInMs, other.startInMs + other.widthInMs);
+        final long mergedCount = count + other.count;
+        double mergedSquaredDeviations = squaredDeviations + other.squaredDeviations;
+        if (count > 0 && other.count > 0) {
+            final double delta = other.sum / other.count - sum / count;
+            mergedSquaredDeviations += delta * delta * ((double) count * other.count / mergedCount);
+        }
+        return new BucketStatistics(startInMs, (int) (endInMs - startInMs), mergedCount, sum + other.sum,
+                Math.min(min, other.min), Math.max(max, other.max), mergedSquaredDeviations);
+    }
+
+    /**
+     * Epoch milli seconds of the first instant covered by the bucket
+     */
+    public long getStartInMs() {
+        return startInMs;
+    }
+
+    public int getWidthInMs() {
+        return widthInMs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Sum of the squared differences of the amounts from their mean, i.e. the population variance times the count
+     */
+    public double getSquaredDeviations() {
+        return squaredDeviations;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BucketStatistics{");
+        sb.append("startInMs=").append(startInMs);
+        sb.append(", widthInMs=").append(widthInMs);
+        sb.append(", count=").append(count);
+        sb.append(", sum=").append(sum);
+        sb.append(", min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append(", squaredDeviations=").append(squaredDeviations);
+        sb.append('}');
+        return sb.toString();
+    }
+}
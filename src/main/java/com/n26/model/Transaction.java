@@ -6,9 +6,16 @@ public class Transaction {
 
     private final Long timestamp;
 
+    private final String accountId;
+
     public Transaction(Double amount, Long timestamp) {
+        this(amount, timestamp, null);
+    }
+
+    public Transaction(Double amount, Long timestamp, String accountId) {
         this.amount = amount;
         this.timestamp = timestamp;
+        this.accountId = accountId;
     }
 
     public Double getAmount() {
@@ -19,11 +26,16 @@ public class Transaction {
         return timestamp;
     }
 
+    public String getAccountId() {
+        return accountId;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("Transaction{");
         sb.append("amount=").append(amount);
         sb.append(", timestamp=").append(timestamp);
+        sb.append(", accountId=").append(accountId);
         sb.append('}');
         return sb.toString();
     }
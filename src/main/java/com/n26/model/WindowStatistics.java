@@ -0,0 +1,95 @@
+package com.n26.model;
+
+/**
+ * Statistics of the transactions happened within the window of validity ending at a given instant, all taken from a
+ * single aggregation of its buckets so that they are consistent with each other
+ */
+public class WindowStatistics {
+
+    private final long count;
+
+    private final double sum;
+
+    private final double min;
+
+    private final double max;
+
+    private final double squaredDeviations;
+
+    private final long distinctAccountCount;
+
+    private final long edgeErrorInMs;
+
+    public WindowStatistics(long count, double sum, double min, double max, double squaredDeviations,
+                            long distinctAccountCount, long edgeErrorInMs) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.squaredDeviations = squaredDeviations;
+        this.distinctAccountCount = distinctAccountCount;
+        this.edgeErrorInMs = edgeErrorInMs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getAverage() {
+        return sum / count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Population variance of the amounts
+     */
+    public double getVariance() {
+        return squaredDeviations / count;
+    }
+
+    /**
+     * Population standard deviation of the amounts
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Estimated number of distinct accounts, transactions without an account not being counted
+     */
+    public long getDistinctAccountCount() {
+        return distinctAccountCount;
+    }
+
+    /**
+     * Time span in milli seconds outside the window which is covered by the buckets at its edges
+     */
+    public long getEdgeErrorInMs() {
+        return edgeErrorInMs;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("WindowStatistics{");
+        sb.append("count=").append(count);
+        sb.append(", sum=").append(sum);
+        sb.append(", min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append(", squaredDeviations=").append(squaredDeviations);
+        sb.append(", distinctAccountCount=").append(distinctAccountCount);
+        sb.append(", edgeErrorInMs=").append(edgeErrorInMs);
+        sb.append('}');
+        return sb.toString();
+    }
+}
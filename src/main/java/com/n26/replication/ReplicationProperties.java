@@ -0,0 +1,73 @@
+package com.n26.replication;
+
+/**
+ * Settings of the replication, bound from the {@code transaction.replication} properties
+ */
+public class ReplicationProperties {
+
+    public enum Role {
+        NONE, PRIMARY, REPLICA
+    }
+
+    private Role role = Role.NONE;
+
+    /**
+     * Host the replica listens on, and the primary connects to
+     */
+    private String host = "localhost";
+
+    /**
+     * Port the replica listens on, and the primary connects to
+     */
+    private int port = 7070;
+
+    /**
+     * Interval in milli seconds at which the primary streams the changed buckets to the replica
+     */
+    private long flushIntervalInMs = 100;
+
+    /**
+     * Largest frame in bytes the replica accepts; the connection of a primary sending a larger one is dropped
+     */
+    private int maxFrameSizeInBytes = 64 * 1024 * 1024;
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public long getFlushIntervalInMs() {
+        return flushIntervalInMs;
+    }
+
+    public void setFlushIntervalInMs(long flushIntervalInMs) {
+        this.flushIntervalInMs = flushIntervalInMs;
+    }
+
+    public int getMaxFrameSizeInBytes() {
+        return maxFrameSizeInBytes;
+    }
+
+    public void setMaxFrameSizeInBytes(int maxFrameSizeInBytes) {
+        this.maxFrameSizeInBytes = maxFrameSizeInBytes;
+    }
+}
@@ -0,0 +1,127 @@
+package com.n26.replication;
+
+import com.n26.repository.ReplicableTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the buckets changed in the repository of the primary to the {@link ReplicationReceiver} of a replica, once
+ * every flush interval. Every frame is the length of its payload followed by the payload written by {@link
+ * ReplicableTransactionRepository#writeChanges}, and a frame is sent at every interval even without changes.
+ * <p>
+ * The connection is re-established on failure, requesting a full resync so that the changes lost with the previous
+ * connection reach the replica as well.
+ */
+public class ReplicationPublisher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationPublisher.class);
+
+    private static final int CONNECT_TIMEOUT_IN_MS = 1000;
+
+    private final ReplicableTransactionRepository repository;
+
+    private final ReplicationProperties properties;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "replication-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+
+    private final Counter sentBytes;
+
+    private final ThroughputMeter throughput = new ThroughputMeter();
+
+    private Socket socket;
+
+    private DataOutputStream output;
+
+    public ReplicationPublisher(ReplicableTransactionRepository repository, ReplicationProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.sentBytes = meterRegistry.counter("replication.bytes", "direction", "sent");
+        meterRegistry.gauge("replication.throughput", Tags.of("direction", "sent"),
+                throughput, ThroughputMeter::getBytesPerSecond);
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::flush, 0, properties.getFlushIntervalInMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the changes since the previous flush, connecting to the replica first when not connected
+     */
+    void flush() {
+        try {
+            if (output == null) {
+                connect();
+            }
+            frame.reset();
+            repository.writeChanges(new DataOutputStream(frame));
+            output.writeInt(frame.size());
+            frame.writeTo(output);
+            output.flush();
+            sentBytes.increment(Integer.BYTES + frame.size());
+            throughput.record(Integer.BYTES + frame.size(), System.currentTimeMillis());
+        } catch (IOException e) {
+            LOGGER.debug("Could not replicate to {}:{}", properties.getHost(), properties.getPort(), e);
+            disconnect();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(CONNECT_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        disconnect();
+    }
+
+    private void connect() throws IOException {
+        final Socket newSocket = new Socket();
+        try {
+            newSocket.setTcpNoDelay(true);
+            newSocket.connect(new InetSocketAddress(properties.getHost(), properties.getPort()),
+                    CONNECT_TIMEOUT_IN_MS);
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+        socket = newSocket;
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        repository.requestFullResync();
+        LOGGER.info("Replicating to {}:{}", properties.getHost(), properties.getPort());
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close replication connection", e);
+            }
+        }
+        socket = null;
+        output = null;
+    }
+}
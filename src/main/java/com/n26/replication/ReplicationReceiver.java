@@ -0,0 +1,125 @@
+package com.n26.replication;
+
+import com.n26.repository.ReplicableTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts the connection of a {@link ReplicationPublisher} and applies the frames it streams to the repository of the
+ * replica, one connection at a time. As a replica records no transactions of its own, the stale ones are removed
+ * after every applied frame. The connection is dropped when a frame is announced with a negative size or one larger
+ * than {@link ReplicationProperties#getMaxFrameSizeInBytes}.
+ * <p>
+ * The replication lag is the time between the oldest change of the last applied frame being recorded on the primary
+ * and the frame being applied here, or zero when the frame had no changes.
+ */
+public class ReplicationReceiver implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationReceiver.class);
+
+    private final ReplicableTransactionRepository repository;
+
+    private final ReplicationProperties properties;
+
+    private final Clock clock;
+
+    private final Counter receivedBytes;
+
+    private final ThroughputMeter throughput = new ThroughputMeter();
+
+    private volatile long lagInMs = 0;
+
+    private volatile boolean closed = false;
+
+    private ServerSocket serverSocket;
+
+    public ReplicationReceiver(ReplicableTransactionRepository repository, ReplicationProperties properties,
+                               Clock clock, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.clock = clock;
+        this.receivedBytes = meterRegistry.counter("replication.bytes", "direction", "received");
+        meterRegistry.gauge("replication.throughput", Tags.of("direction", "received"), throughput,
+                ThroughputMeter::getBytesPerSecond);
+        TimeGauge.builder("replication.lag", this, TimeUnit.MILLISECONDS, ReplicationReceiver::getLagInMs)
+                .register(meterRegistry);
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(properties.getPort(), 1, InetAddress.getByName(properties.getHost()));
+        final Thread thread = new Thread(this::receive, "replication-receiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the port the receiver listens on, which differs from the configured one when that is 0
+     */
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getLagInMs() {
+        return lagInMs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    private void receive() {
+        while (!closed) {
+            try (Socket socket = serverSocket.accept();
+                 DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                LOGGER.info("Replicating from {}", socket.getRemoteSocketAddress());
+                while (!closed) {
+                    applyFrame(input);
+                }
+            } catch (EOFException e) {
+                LOGGER.info("Primary disconnected");
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.warn("Replication failed", e);
+                }
+            }
+        }
+    }
+
+    private void applyFrame(DataInputStream input) throws IOException {
+        final int frameSize = input.readInt();
+        if (frameSize < 0 || frameSize > properties.getMaxFrameSizeInBytes()) {
+            throw new IOException("Frame size " + frameSize + " is not between 0 and "
+                    + properties.getMaxFrameSizeInBytes());
+        }
+        final byte[] frame = new byte[frameSize];
+        input.readFully(frame);
+
+        final long oldestChange = repository.applyChanges(new DataInputStream(new ByteArrayInputStream(frame)));
+        repository.removeStaleTransactions(clock.instant());
+
+        final long currentTimeMillis = System.currentTimeMillis();
+        lagInMs = oldestChange == 0 ? 0 : Math.max(0, currentTimeMillis - oldestChange);
+        receivedBytes.increment(Integer.BYTES + frameSize);
+        throughput.record(Integer.BYTES + frameSize, currentTimeMillis);
+    }
+}
@@ -0,0 +1,31 @@
+package com.n26.replication;
+
+/**
+ * Measures the bytes per second transferred over the last second or so; updated on every recorded transfer, which
+ * happens at every flush interval even when there is nothing to replicate
+ */
+class ThroughputMeter {
+
+    private static final long SAMPLE_INTERVAL_IN_MS = 1000;
+
+    private long sampleStartMillis = -1;
+    private long bytesSinceSampleStart = 0;
+    private volatile double bytesPerSecond = 0.0;
+
+    synchronized void record(long bytes, long currentTimeMillis) {
+        if (sampleStartMillis < 0) {
+            sampleStartMillis = currentTimeMillis;
+        }
+        bytesSinceSampleStart += bytes;
+        final long elapsedMillis = currentTimeMillis - sampleStartMillis;
+        if (elapsedMillis >= SAMPLE_INTERVAL_IN_MS) {
+            bytesPerSecond = bytesSinceSampleStart * 1000.0 / elapsedMillis;
+            sampleStartMillis = currentTimeMillis;
+            bytesSinceSampleStart = 0;
+        }
+    }
+
+    double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+}
@@ -0,0 +1,10 @@
+package com.n26.repository;
+
+/**
+ * Thrown when modifying a repository which only mirrors another one
+ */
+public class ReadOnlyRepositoryException extends RuntimeException {
+    public ReadOnlyRepositoryException() {
+        super("Repository is read-only");
+    }
+}
@@ -0,0 +1,31 @@
+package com.n26.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Representation of a {@link TransactionRepository} whose recorded buckets can be streamed to another instance and
+ * applied there
+ */
+public interface ReplicableTransactionRepository extends TransactionRepository {
+
+    /**
+     * Writes the current state of every bucket changed since the previous call, several changes of the same bucket
+     * being coalesced into one, and returns the number of written buckets. After {@link #deleteAll()} or {@link
+     * #requestFullResync()} all the retained buckets are written, preceded by a marker which resets the receiving
+     * repository.
+     */
+    int writeChanges(DataOutput out) throws IOException;
+
+    /**
+     * Makes the next {@link #writeChanges} write all the retained buckets, e.g. for a newly connected replica
+     */
+    void requestFullResync();
+
+    /**
+     * Applies the changes written by {@link #writeChanges} of another repository and returns the epoch milli seconds
+     * of the oldest change among them, or 0 when there were none
+     */
+    long applyChanges(DataInput in) throws IOException;
+}
@@ -0,0 +1,138 @@
+package com.n26.repository;
+
+/**
+ * Settings of the transaction repository, bound from the {@code transaction.repository} properties
+ */
+public class RepositoryProperties {
+
+    public static final int MIN_DISTINCT_COUNT_PRECISION = 4;
+
+    public static final int MAX_DISTINCT_COUNT_PRECISION = 18;
+
+    /**
+     * Number of independent shards the writes are spread over, defaults to the number of available processors
+     */
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Width of a time bucket in milli seconds
+     */
+    private int precisionInMs = 1000;
+
+    /**
+     * Duration in milli seconds for which a transaction is part of the statistics
+     */
+    private long transactionValidityInMs = 60000;
+
+    /**
+     * Duration in milli seconds for which the buckets are retained, so that the statistics can also be queried for
+     * any instant within the last {@code retentionInMs - transactionValidityInMs}. Never shorter than the validity,
+     * which is also the default.
+     */
+    private long retentionInMs = 0;
+
+    /**
+     * Number of largest transactions retained per bucket and reported for the window
+     */
+    private int topK = 10;
+
+    /**
+     * Precision of the distinct account count sketch; every bucket which saw an account takes {@code
+     * 2^distinctCountPrecision} bytes and the relative error is about {@code 1.04 / sqrt(2^distinctCountPrecision)};
+     * between 4 and 18
+     */
+    private int distinctCountPrecision = 12;
+
+    /**
+     * Width in milli seconds of the coarse buckets into which older buckets are merged as they age, a multiple of
+     * {@code precisionInMs}; 0, the default, keeps all the buckets at {@code precisionInMs}
+     */
+    private int coarsePrecisionInMs = 0;
+
+    /**
+     * Number of buckets the repository may retain when coarse buckets are enabled, divided equally among the shards.
+     * The most recent buckets are kept at {@code precisionInMs} as far back as the share of a shard allows, which is
+     * not at all when even the coarse buckets of the retention exceed it.
+     */
+    private int maxBuckets = 1000;
+
+    public static RepositoryProperties of(int precisionInMs, long transactionValidityInMs) {
+        final RepositoryProperties properties = new RepositoryProperties();
+        properties.setPrecisionInMs(precisionInMs);
+        properties.setTransactionValidityInMs(transactionValidityInMs);
+        return properties;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public int getPrecisionInMs() {
+        return precisionInMs;
+    }
+
+    public void setPrecisionInMs(int precisionInMs) {
+        this.precisionInMs = precisionInMs;
+    }
+
+    public long getTransactionValidityInMs() {
+        return transactionValidityInMs;
+    }
+
+    public void setTransactionValidityInMs(long transactionValidityInMs) {
+        this.transactionValidityInMs = transactionValidityInMs;
+    }
+
+    public long getRetentionInMs() {
+        return Math.max(retentionInMs, transactionValidityInMs);
+    }
+
+    public void setRetentionInMs(long retentionInMs) {
+        this.retentionInMs = retentionInMs;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public void setTopK(int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("Top k must not be negative but was " + topK);
+        }
+        this.topK = topK;
+    }
+
+    public int getDistinctCountPrecision() {
+        return distinctCountPrecision;
+    }
+
+    public void setDistinctCountPrecision(int distinctCountPrecision) {
+        if (distinctCountPrecision < MIN_DISTINCT_COUNT_PRECISION
+                || distinctCountPrecision > MAX_DISTINCT_COUNT_PRECISION) {
+            throw new IllegalArgumentException("Distinct count precision must be between "
+                    + MIN_DISTINCT_COUNT_PRECISION + " and " + MAX_DISTINCT_COUNT_PRECISION + " but was "
+                    + distinctCountPrecision);
+        }
+        this.distinctCountPrecision = distinctCountPrecision;
+    }
+
+    public int getCoarsePrecisionInMs() {
+        return coarsePrecisionInMs;
+    }
+
+    public void setCoarsePrecisionInMs(int coarsePrecisionInMs) {
+        this.coarsePrecisionInMs = coarsePrecisionInMs;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+}
@@ -1,11 +1,16 @@
 package com.n26.repository;
 
+import com.n26.model.BucketStatistics;
 import com.n26.model.Transaction;
+import com.n26.model.WindowStatistics;
 
 import java.time.Instant;
+import java.util.List;
 
 /**
- * Representation of a component which stores transactions and/or related aggregated statistics
+ * Representation of a component which stores transactions and/or related aggregated statistics. The statistics are
+ * computed for the window of {@link #getTransactionValidityInMilliSeconds} ending at the given instant, which can lie
+ * anywhere within the last {@link #getRetentionInMilliSeconds} minus that validity.
  */
 public interface TransactionRepository {
 
@@ -14,6 +19,18 @@ public interface TransactionRepository {
      */
     void save(Transaction transaction);
 
+    /**
+     * Saves a transaction without account given by its fields, without allocating any object once its time bucket
+     * exists
+     */
+    void save(double amount, long timestamp);
+
+    /**
+     * Gets all the statistics of the transactions happened in last {@link #getTransactionValidityInMilliSeconds} from
+     * a single aggregation, in O(1) time-complexity
+     */
+    WindowStatistics getStatistics(Instant currentTime) throws NoRecordedTransactionException;
+
     /**
      * Gets the aggregated sum for the transactions happened in last {@link #getTransactionValidityInMilliSeconds} in
      * O(1) time-complexity
@@ -38,20 +55,71 @@ public interface TransactionRepository {
      */
     Double getMaximum(Instant currentTime) throws NoRecordedTransactionException;
 
+    /**
+     * Gets the population variance of the amounts for the transactions happened in last {@link
+     * #getTransactionValidityInMilliSeconds} in O(1) time-complexity
+     */
+    Double getVariance(Instant currentTime) throws NoRecordedTransactionException;
+
+    /**
+     * Gets the population standard deviation of the amounts for the transactions happened in last {@link
+     * #getTransactionValidityInMilliSeconds} in O(1) time-complexity
+     */
+    Double getStandardDeviation(Instant currentTime) throws NoRecordedTransactionException;
+
     /**
      * Gets the total count for the transactions happened in last {@link #getTransactionValidityInMilliSeconds} in O(1)
      * time-complexity
      */
     Long getCount(Instant currentTime);
 
+    /**
+     * Gets the largest transactions happened in last {@link #getTransactionValidityInMilliSeconds}, ordered by
+     * descending amount, in O(K) space-complexity where K is the configured number of retained transactions
+     */
+    List<Transaction> getLargestTransactions(Instant currentTime);
+
+    /**
+     * Gets the estimated number of distinct accounts among the transactions happened in last {@link
+     * #getTransactionValidityInMilliSeconds} in O(1) time-complexity. Transactions without an account are not counted.
+     */
+    Long getDistinctAccountCount(Instant currentTime);
+
+    /**
+     * Gets the time span in milli seconds outside the window of {@link #getTransactionValidityInMilliSeconds} which is
+     * covered by the buckets at its edges, i.e. how far from the window the transactions counted in the statistics may
+     * have happened
+     */
+    long getWindowEdgeErrorInMilliSeconds(Instant currentTime);
+
+    /**
+     * Gets the aggregates of the buckets holding the transactions counted in the statistics of the window ending at
+     * the given time, in ascending order of time. The buckets at the edges may reach beyond the window, see {@link
+     * #getWindowEdgeErrorInMilliSeconds}.
+     */
+    List<BucketStatistics> getBucketStatistics(Instant currentTime);
+
     /**
      * Maintenance operation which removes all stale transactions which are older than {@link
-     * #getTransactionValidityInMilliSeconds} sec. and returns the count
+     * #getRetentionInMilliSeconds} and returns the count. Also merges aged buckets into coarser ones when the
+     * repository is configured to do so.
      */
     long removeStaleTransactions(Instant currentTime);
 
+    /**
+     * Deletes all the recorded transactions in O(1) time-complexity. The storage of the deleted transactions is
+     * reclaimed lazily, and a concurrent save is either deleted along with them or recorded after the deletion.
+     */
+    void deleteAll();
+
     /**
      * Returns the validity of a transaction in milli seconds
      */
     long getTransactionValidityInMilliSeconds();
+
+    /**
+     * Returns for how long the transactions are retained in milli seconds, never shorter than {@link
+     * #getTransactionValidityInMilliSeconds}
+     */
+    long getRetentionInMilliSeconds();
 }
@@ -0,0 +1,133 @@
+package com.n26.repository.impl;
+
+import com.n26.model.Transaction;
+import com.n26.model.WindowStatistics;
+import com.n26.repository.NoRecordedTransactionException;
+import com.n26.repository.TransactionRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Base for repositories which derive all the statistics from a single merged {@link AggregatedStats} of the
+ * transactions happened in last {@link #getTransactionValidityInMilliSeconds}
+ */
+abstract class AbstractAggregatingTransactionRepository implements TransactionRepository {
+
+    /**
+     * Records a transaction given by its fields; the account hash is the {@link HyperLogLog#hash} of its account, if
+     * it has one
+     */
+    abstract void record(double amount, long timestamp, boolean hasAccount, long accountHash);
+
+    /**
+     * Merges the aggregates of all the buckets which are valid at given time into a new {@link AggregatedStats}
+     */
+    abstract AggregatedStats aggregate(Instant currentTime);
+
+    /**
+     * Returns the key of the bucket which records transactions of the given time
+     */
+    abstract long bucketKeyOf(long timestampInMs);
+
+    /**
+     * Returns the keys of all the retained buckets of the current generation
+     */
+    abstract Set<Long> bucketKeys();
+
+    /**
+     * Returns a copy of the bucket with given key, or {@code null} when there is none in the current generation
+     */
+    abstract AggregatedStats bucketSnapshot(long bucketKey);
+
+    /**
+     * Replaces the bucket with given key by a copy of the given aggregate, or removes it when that is {@code null}
+     */
+    abstract void replaceBucket(long bucketKey, AggregatedStats stats);
+
+    @Override
+    public void save(Transaction transaction) {
+        if (transaction.getAccountId() == null) {
+            record(transaction.getAmount(), transaction.getTimestamp(), false, 0L);
+        } else {
+            record(transaction.getAmount(), transaction.getTimestamp(), true,
+                    HyperLogLog.hash(transaction.getAccountId()));
+        }
+    }
+
+    @Override
+    public void save(double amount, long timestamp) {
+        record(amount, timestamp, false, 0L);
+    }
+
+    @Override
+    public WindowStatistics getStatistics(Instant currentTime) throws NoRecordedTransactionException {
+        final AggregatedStats stats = aggregate(currentTime);
+        if (stats.getCount() == 0) {
+            throw new NoRecordedTransactionException();
+        }
+        return stats.toWindowStatistics(getWindowEdgeErrorInMilliSeconds(currentTime));
+    }
+
+    @Override
+    public Double getAverage(Instant currentTime) throws NoRecordedTransactionException {
+        final AggregatedStats stats = aggregate(currentTime);
+        if (stats.getCount() == 0) {
+            throw new NoRecordedTransactionException();
+        }
+        return stats.getSum() / stats.getCount();
+    }
+
+    @Override
+    public Double getSum(Instant currentTime) {
+        return aggregate(currentTime).getSum();
+    }
+
+    @Override
+    public Double getMinimum(Instant currentTime) throws NoRecordedTransactionException {
+        final Double min = aggregate(currentTime).getMin();
+        if (min == null) {
+            throw new NoRecordedTransactionException();
+        }
+        return min;
+    }
+
+    @Override
+    public Double getMaximum(Instant currentTime) throws NoRecordedTransactionException {
+        final Double max = aggregate(currentTime).getMax();
+        if (max == null) {
+            throw new NoRecordedTransactionException();
+        }
+        return max;
+    }
+
+    @Override
+    public Double getVariance(Instant currentTime) throws NoRecordedTransactionException {
+        final Double variance = aggregate(currentTime).getVariance();
+        if (variance == null) {
+            throw new NoRecordedTransactionException();
+        }
+        return variance;
+    }
+
+    @Override
+    public Double getStandardDeviation(Instant currentTime) throws NoRecordedTransactionException {
+        return getStatistics(currentTime).getStandardDeviation();
+    }
+
+    @Override
+    public Long getCount(Instant currentTime) {
+        return aggregate(currentTime).getCount();
+    }
+
+    @Override
+    public List<Transaction> getLargestTransactions(Instant currentTime) {
+        return aggregate(currentTime).getTopTransactions();
+    }
+
+    @Override
+    public Long getDistinctAccountCount(Instant currentTime) {
+        return aggregate(currentTime).getDistinctAccountCount();
+    }
+}
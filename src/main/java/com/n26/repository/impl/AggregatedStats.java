@@ -0,0 +1,229 @@
+package com.n26.repository.impl;
+
+import com.n26.model.BucketStatistics;
+import com.n26.model.Transaction;
+import com.n26.model.WindowStatistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregated statistics of the transactions recorded in a single time bucket. Instances are mergeable, so the
+ * statistics of a window (or of several shards) are obtained by merging the aggregates of its buckets.
+ * <p>
+ * The spread is kept as the running mean and the sum of squared differences from it, updated with Welford's method
+ * on every amount and combined with Chan et al.'s parallel formula on merge, which stays stable where the naive sum
+ * of squares cancels catastrophically.
+ * <p>
+ * The largest transactions are retained in a {@link TopTransactions} heap of fixed capacity, and the distinct
+ * accounts are counted approximately by a {@link HyperLogLog} sketch.
+ * <p>
+ * Every bucket belongs to the generation of recordings it was created in; buckets of earlier generations are treated
+ * as empty by the repositories. A bucket removed from its repository, e.g. after its transactions were moved to a
+ * coarser one, is retired and accepts no more transactions.
+ */
+class AggregatedStats {
+
+    /**
+     * Source of the {@link #lockOrder} of the instances
+     */
+    private static final AtomicLong LOCK_ORDERS = new AtomicLong();
+
+    private double sum = 0.0;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double min = Double.POSITIVE_INFINITY;
+    private long count = 0;
+    private double mean = 0.0;
+    private double squaredDeviations = 0.0;
+    private final TopTransactions topTransactions;
+    private final HyperLogLog distinctAccounts;
+    private final long generation;
+    private boolean retired = false;
+
+    /**
+     * Order in which the monitors of two instances are acquired when merging one into the other, so that concurrent
+     * merges never deadlock
+     */
+    private final long lockOrder = LOCK_ORDERS.getAndIncrement();
+
+    AggregatedStats(int topTransactionsCapacity, int distinctCountPrecision) {
+        this(0, topTransactionsCapacity, distinctCountPrecision);
+    }
+
+    AggregatedStats(long generation, int topTransactionsCapacity, int distinctCountPrecision) {
+        this(generation, new TopTransactions(topTransactionsCapacity), new HyperLogLog(distinctCountPrecision));
+    }
+
+    private AggregatedStats(long generation, TopTransactions topTransactions, HyperLogLog distinctAccounts) {
+        this.generation = generation;
+        this.topTransactions = topTransactions;
+        this.distinctAccounts = distinctAccounts;
+    }
+
+    /**
+     * Adds a transaction to this aggregate, returning {@code false} without adding it when the bucket is retired. The
+     * account hash is the {@link HyperLogLog#hash} of the account of the transaction, if it has one.
+     */
+    synchronized boolean aggregateIncrementally(double amount, long timestamp, boolean hasAccount, long accountHash) {
+        if (retired) {
+            return false;
+        }
+        sum += amount;
+        max = Math.max(max, amount);
+        min = Math.min(min, amount);
+        count++;
+        final double delta = amount - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (amount - mean);
+        topTransactions.offer(amount, timestamp);
+        if (hasAccount) {
+            distinctAccounts.offer(accountHash);
+        }
+        return true;
+    }
+
+    /**
+     * Merges the given aggregate into this one, leaving the given aggregate untouched. Both are locked meanwhile, so
+     * the given aggregate is read in place rather than copied.
+     */
+    void merge(AggregatedStats other) {
+        final AggregatedStats first = lockOrder < other.lockOrder ? this : other;
+        final AggregatedStats second = first == this ? other : this;
+        synchronized (first) {
+            synchronized (second) {
+                sum += other.sum;
+                max = Math.max(max, other.max);
+                min = Math.min(min, other.min);
+                if (other.count > 0) {
+                    final long mergedCount = count + other.count;
+                    final double delta = other.mean - mean;
+                    mean += delta * other.count / mergedCount;
+                    squaredDeviations += other.squaredDeviations
+                            + delta * delta * ((double) count * other.count / mergedCount);
+                    count = mergedCount;
+                }
+                topTransactions.merge(other.topTransactions);
+                distinctAccounts.merge(other.distinctAccounts);
+            }
+        }
+    }
+
+    synchronized AggregatedStats snapshot() {
+        final AggregatedStats copy = new AggregatedStats(generation, topTransactions.copy(),
+                distinctAccounts.copy());
+        copy.sum = sum;
+        copy.max = max;
+        copy.min = min;
+        copy.count = count;
+        copy.mean = mean;
+        copy.squaredDeviations = squaredDeviations;
+        return copy;
+    }
+
+    /**
+     * Retires this bucket, so that no more transactions are added to it
+     */
+    synchronized void retire() {
+        retired = true;
+    }
+
+    synchronized boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Writes the state of this aggregate in the binary form read by {@link #readFrom}
+     */
+    synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(sum);
+        out.writeDouble(count == 0 ? Double.NaN : min);
+        out.writeDouble(count == 0 ? Double.NaN : max);
+        out.writeDouble(mean);
+        out.writeDouble(squaredDeviations);
+        topTransactions.writeTo(out);
+        distinctAccounts.writeTo(out);
+    }
+
+    static AggregatedStats readFrom(DataInput in, long generation, int topTransactionsCapacity,
+                                    int distinctCountPrecision) throws IOException {
+        final AggregatedStats stats = new AggregatedStats(generation, topTransactionsCapacity, distinctCountPrecision);
+        stats.count = in.readLong();
+        stats.sum = in.readDouble();
+        final double min = in.readDouble();
+        stats.min = Double.isNaN(min) ? Double.POSITIVE_INFINITY : min;
+        final double max = in.readDouble();
+        stats.max = Double.isNaN(max) ? Double.NEGATIVE_INFINITY : max;
+        stats.mean = in.readDouble();
+        stats.squaredDeviations = in.readDouble();
+        stats.topTransactions.readFrom(in);
+        stats.distinctAccounts.readFrom(in);
+        return stats;
+    }
+
+    /**
+     * Returns the amounts aggregated so far as the statistics of the bucket starting at given time
+     */
+    synchronized BucketStatistics toBucketStatistics(long startInMs, int widthInMs) {
+        return new BucketStatistics(startInMs, widthInMs, count, sum, min, max, squaredDeviations);
+    }
+
+    /**
+     * Returns the amounts aggregated so far as the statistics of a window, which must not be empty
+     */
+    synchronized WindowStatistics toWindowStatistics(long edgeErrorInMs) {
+        return new WindowStatistics(count, sum, min, max, squaredDeviations, distinctAccounts.estimate(),
+                edgeErrorInMs);
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    synchronized double getSum() {
+        return sum;
+    }
+
+    /**
+     * Largest of the aggregated amounts, or {@code null} when there are none
+     */
+    synchronized Double getMax() {
+        return count == 0 ? null : max;
+    }
+
+    /**
+     * Smallest of the aggregated amounts, or {@code null} when there are none
+     */
+    synchronized Double getMin() {
+        return count == 0 ? null : min;
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Population variance of the aggregated amounts, or {@code null} when there are none
+     */
+    synchronized Double getVariance() {
+        return count == 0 ? null : squaredDeviations / count;
+    }
+
+    /**
+     * Largest of the aggregated transactions, ordered by descending amount
+     */
+    synchronized List<Transaction> getTopTransactions() {
+        return topTransactions.toDescendingList();
+    }
+
+    /**
+     * Estimated number of distinct accounts among the aggregated transactions
+     */
+    synchronized long getDistinctAccountCount() {
+        return distinctAccounts.estimate();
+    }
+
+}
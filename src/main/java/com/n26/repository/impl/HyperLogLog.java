@@ -0,0 +1,184 @@
+package com.n26.repository.impl;
+
+import com.n26.repository.RepositoryProperties;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct identifiers offered to it. It uses {@code 2^precision} one
+ * byte registers, allocated on the first offer, and has a relative standard error of about {@code
+ * 1.04 / sqrt(2^precision)}, e.g. 1.6% for the default precision of 12. Sketches of the same precision are merged
+ * by taking the register-wise maximum.
+ * <p>
+ * Not thread-safe, guarded by the owning {@link AggregatedStats}.
+ */
+class HyperLogLog {
+
+    static final int MIN_PRECISION = RepositoryProperties.MIN_DISTINCT_COUNT_PRECISION;
+    static final int MAX_PRECISION = RepositoryProperties.MAX_DISTINCT_COUNT_PRECISION;
+
+    private static final byte SPARSE_ENCODING = 0;
+    private static final byte DENSE_ENCODING = 1;
+
+    private final int precision;
+    private byte[] registers;
+
+    HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION + " and "
+                    + MAX_PRECISION + " but was " + precision);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * 64-bit hash of an identifier: FNV-1a over its characters, followed by the MurmurHash3 finalizer so that the
+     * bits used for the register index are well mixed
+     */
+    static long hash(CharSequence identifier) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < identifier.length(); i++) {
+            hash ^= identifier.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    void offer(long hash) {
+        final int index = (int) (hash >>> (Long.SIZE - precision));
+        final byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        final byte[] registers = registers();
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " into "
+                    + precision);
+        }
+        if (other.registers == null) {
+            return;
+        }
+        final byte[] registers = registers();
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    HyperLogLog copy() {
+        final HyperLogLog copy = new HyperLogLog(precision);
+        if (registers != null) {
+            copy.registers = registers.clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Writes the registers, listing only the non-empty ones along with their index when that is shorter
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        int usedRegisters = 0;
+        if (registers != null) {
+            for (byte register : registers) {
+                if (register != 0) {
+                    usedRegisters++;
+                }
+            }
+        }
+        if (registers != null && usedRegisters * (Integer.BYTES + 1) >= registers.length) {
+            out.writeByte(DENSE_ENCODING);
+            out.write(registers);
+            return;
+        }
+        out.writeByte(SPARSE_ENCODING);
+        out.writeInt(usedRegisters);
+        for (int i = 0; usedRegisters > 0 && i < registers.length; i++) {
+            if (registers[i] != 0) {
+                out.writeInt(i);
+                out.writeByte(registers[i]);
+            }
+        }
+    }
+
+    /**
+     * Merges the registers written by {@link #writeTo} into this sketch
+     */
+    void readFrom(DataInput in) throws IOException {
+        final int writtenPrecision = in.readByte();
+        if (writtenPrecision != precision) {
+            throw new IOException("Cannot read sketch of precision " + writtenPrecision + " into " + precision);
+        }
+        final byte encoding = in.readByte();
+        if (encoding == DENSE_ENCODING) {
+            final byte[] written = new byte[1 << precision];
+            in.readFully(written);
+            final byte[] registers = registers();
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = (byte) Math.max(registers[i], written[i]);
+            }
+        } else {
+            final int usedRegisters = in.readInt();
+            for (int i = 0; i < usedRegisters; i++) {
+                final int index = in.readInt();
+                final byte register = in.readByte();
+                final byte[] registers = registers();
+                if (index < 0 || index >= registers.length) {
+                    throw new IOException("Register index " + index + " out of range");
+                }
+                registers[index] = (byte) Math.max(registers[index], register);
+            }
+        }
+    }
+
+    long estimate() {
+        if (registers == null) {
+            return 0;
+        }
+        final int registerCount = registers.length;
+        double harmonicSum = 0.0;
+        int emptyRegisters = 0;
+        for (byte register : registers) {
+            harmonicSum += Double.longBitsToDouble((1023L - register) << 52);
+            if (register == 0) {
+                emptyRegisters++;
+            }
+        }
+        final double estimate = alpha(registerCount) * registerCount * registerCount / harmonicSum;
+        if (estimate <= 2.5 * registerCount && emptyRegisters > 0) {
+            return Math.round(registerCount * Math.log((double) registerCount / emptyRegisters));
+        }
+        return Math.round(estimate);
+    }
+
+    private byte[] registers() {
+        if (registers == null) {
+            registers = new byte[1 << precision];
+        }
+        return registers;
+    }
+
+    private static double alpha(int registerCount) {
+        switch (registerCount) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+}
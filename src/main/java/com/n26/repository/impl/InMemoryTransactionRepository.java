@@ -1,158 +1,445 @@
 package com.n26.repository.impl;
 
-import com.n26.model.Transaction;
-import com.n26.repository.NoRecordedTransactionException;
-import com.n26.repository.TransactionRepository;
-import org.springframework.stereotype.Service;
+import com.n26.model.BucketStatistics;
+import com.n26.repository.RepositoryProperties;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Stream;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-@Service
-public class InMemoryTransactionRepository implements TransactionRepository {
+/**
+ * Records the transactions in buckets of {@link RepositoryProperties#getPrecisionInMs()}. When coarse buckets are
+ * configured, {@link #removeStaleTransactions} also moves the buckets older than the fine horizon into buckets of
+ * {@link RepositoryProperties#getCoarsePrecisionInMs()}, so that at most {@link RepositoryProperties#getMaxBuckets()}
+ * buckets are retained at the cost of a larger error at the older edge of a window.
+ * <p>
+ * A fine bucket is moved by retiring it, merging its final state into the coarse bucket and removing it. A save which
+ * hits a retired bucket is retried in the coarse bucket. The buckets are moved under a write lock and the buckets of
+ * a window are read under its read lock, so that a read sees every bucket either before or after its move. Compaction
+ * only runs once the fine horizon has crossed a coarse bucket, or when a save racing with the previous compaction left
+ * a fine bucket behind it, both checked without locking, so that most calls to {@link #removeStaleTransactions} leave
+ * the lock alone.
+ */
+public class InMemoryTransactionRepository extends AbstractAggregatingTransactionRepository {
 
     private final ConcurrentSkipListMap<Long, AggregatedStats> statisticsByTime = new ConcurrentSkipListMap<>();
 
-    private static final int SECOND_LEVEL_PRECISION = 1000;
-    private static final long DEFAULT_TRANSACTION_VALIDITY_IN_MS = 60000;
+    private final ConcurrentSkipListMap<Long, AggregatedStats> coarseStatisticsByTime = new ConcurrentSkipListMap<>();
 
     private final int precisionInMs;
     private final long transactionValidityInMilliSeconds;
+    private final long retentionInMilliSeconds;
+    private final int topK;
+    private final int distinctCountPrecision;
+    private final int coarsePrecisionInMs;
+
+    /**
+     * How far back from the current time the buckets are kept at full precision
+     */
+    private final long fineHorizonInMs;
+
+    /**
+     * Epoch milli seconds before which transactions are recorded in the coarse buckets
+     */
+    private volatile long compactedUntil = Long.MIN_VALUE;
+
+    /**
+     * Excludes the reads of the window buckets while fine buckets are moved into the coarse ones
+     */
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+
+    /**
+     * Fine bucket which recorded the latest transaction, checked before the map since transactions mostly arrive in
+     * time order. Buckets are retired when removed from the map, so that a stale reference here never records.
+     */
+    private volatile RecentBucket recentBucket;
+
+    /**
+     * Generation of the recordings; buckets created in an earlier generation were deleted by {@link #deleteAll()}
+     */
+    private final AtomicLong generation;
 
     public InMemoryTransactionRepository() {
-        this(SECOND_LEVEL_PRECISION, DEFAULT_TRANSACTION_VALIDITY_IN_MS);
+        this(new RepositoryProperties());
     }
 
     public InMemoryTransactionRepository(int precisionInMs, long transactionValidityInMilliSeconds) {
-        this.precisionInMs = precisionInMs;
-        this.transactionValidityInMilliSeconds = transactionValidityInMilliSeconds;
+        this(RepositoryProperties.of(precisionInMs, transactionValidityInMilliSeconds));
     }
 
-    @Override
-    public void save(Transaction transaction) {
-        final Long ceilingSecond = roundToCeilingSecond(transaction.getTimestamp());
-        final AggregatedStats existingValue = statisticsByTime.putIfAbsent(ceilingSecond,
-                AggregatedStats.of(transaction.getAmount()));
-        if (existingValue != null) {
-            existingValue.aggregateIncrementally(transaction.getAmount());
-        }
+    public InMemoryTransactionRepository(RepositoryProperties properties) {
+        this(properties, new AtomicLong(), properties.getMaxBuckets());
     }
 
-    @Override
-    public Double getAverage(Instant currentTime) throws NoRecordedTransactionException {
-        final Long totalCount = getCount(currentTime);
-        if (totalCount == 0) {
-            throw new NoRecordedTransactionException();
+    /**
+     * Creates a shard of a repository, sharing its generation and retaining at most the given share of its buckets
+     */
+    InMemoryTransactionRepository(RepositoryProperties properties, AtomicLong generation, int maxBuckets) {
+        this.generation = generation;
+        this.precisionInMs = properties.getPrecisionInMs();
+        this.transactionValidityInMilliSeconds = properties.getTransactionValidityInMs();
+        this.retentionInMilliSeconds = properties.getRetentionInMs();
+        this.topK = properties.getTopK();
+        this.distinctCountPrecision = properties.getDistinctCountPrecision();
+        this.coarsePrecisionInMs = properties.getCoarsePrecisionInMs();
+        this.fineHorizonInMs = coarsePrecisionInMs > 0
+                ? fineHorizonOf(properties, maxBuckets)
+                : retentionInMilliSeconds;
+    }
+
+    /**
+     * Returns the horizon which keeps the fine buckets of its span and the coarse buckets of the rest of the retention
+     * within the budget, i.e. the largest {@code H} with {@code H / precision + (retention - H) / coarsePrecision <=
+     * maxBuckets}, leaving room for the partial buckets at both ends of each span and for the fine buckets kept
+     * while the horizon has not crossed a coarse bucket yet
+     */
+    private static long fineHorizonOf(RepositoryProperties properties, int maxBuckets) {
+        final int precisionInMs = properties.getPrecisionInMs();
+        final int coarsePrecisionInMs = properties.getCoarsePrecisionInMs();
+        if (coarsePrecisionInMs <= precisionInMs || coarsePrecisionInMs % precisionInMs != 0) {
+            throw new IllegalArgumentException("Coarse precision must be a larger multiple of " + precisionInMs
+                    + " ms but was " + coarsePrecisionInMs + " ms");
         }
-        return getSum(currentTime) / totalCount;
+        final long coarseBuckets = properties.getRetentionInMs() / coarsePrecisionInMs + 2;
+        final long fineBudget = maxBuckets - coarseBuckets - coarsePrecisionInMs / precisionInMs - 1;
+        if (fineBudget <= 0) {
+            return 0;
+        }
+        final long horizon = fineBudget * precisionInMs * coarsePrecisionInMs / (coarsePrecisionInMs - precisionInMs);
+        return Math.min(horizon, properties.getRetentionInMs());
     }
 
     @Override
-    public Double getSum(Instant currentTime) {
-        return getRequiredStats(currentTime)
-                .mapToDouble(AggregatedStats::getSum)
-                .sum();
+    void record(double amount, long timestamp, boolean hasAccount, long accountHash) {
+        final long currentGeneration = generation.get();
+        if (timestamp >= compactedUntil) {
+            final RecentBucket recent = recentBucket;
+            if (recent != null && recent.key == roundToCeilingSecond(timestamp)
+                    && recent.stats.getGeneration() >= currentGeneration
+                    && recent.stats.aggregateIncrementally(amount, timestamp, hasAccount, accountHash)) {
+                return;
+            }
+        }
+        AggregatedStats bucket;
+        do {
+            if (timestamp < compactedUntil) {
+                bucket = record(coarseStatisticsByTime, roundDown(timestamp, coarsePrecisionInMs), amount, timestamp,
+                        hasAccount, accountHash, currentGeneration);
+            } else {
+                final long bucketKey = roundToCeilingSecond(timestamp);
+                bucket = record(statisticsByTime, bucketKey, amount, timestamp, hasAccount, accountHash,
+                        currentGeneration);
+                if (bucket != null) {
+                    recentBucket = new RecentBucket(bucketKey, bucket);
+                }
+            }
+        } while (bucket == null);
     }
 
-    @Override
-    public Double getMinimum(Instant currentTime) throws NoRecordedTransactionException {
-        return getRequiredStats(currentTime)
-                .mapToDouble(AggregatedStats::getMin)
-                .min().orElseThrow(NoRecordedTransactionException::new);
+    /**
+     * Records the transaction in the bucket with given key and returns that bucket, or {@code null} when it is
+     * retired. A new bucket is only allocated when the existing one is missing or deleted.
+     */
+    private AggregatedStats record(ConcurrentSkipListMap<Long, AggregatedStats> buckets, Long bucketKey,
+                                   double amount, long timestamp, boolean hasAccount, long accountHash,
+                                   long currentGeneration) {
+        final AggregatedStats bucket = buckets.get(bucketKey);
+        if (bucket != null && bucket.getGeneration() >= currentGeneration) {
+            return bucket.aggregateIncrementally(amount, timestamp, hasAccount, accountHash) ? bucket : null;
+        }
+        while (true) {
+            final AggregatedStats newBucket = new AggregatedStats(currentGeneration, topK, distinctCountPrecision);
+            newBucket.aggregateIncrementally(amount, timestamp, hasAccount, accountHash);
+            final AggregatedStats existingValue = buckets.putIfAbsent(bucketKey, newBucket);
+            if (existingValue == null) {
+                return newBucket;
+            }
+            if (existingValue.getGeneration() >= currentGeneration) {
+                return existingValue.aggregateIncrementally(amount, timestamp, hasAccount, accountHash)
+                        ? existingValue
+                        : null;
+            }
+            if (buckets.replace(bucketKey, existingValue, newBucket)) {
+                existingValue.retire();
+                return newBucket;
+            }
+        }
     }
 
     @Override
-    public Double getMaximum(Instant currentTime) throws NoRecordedTransactionException {
-        return getRequiredStats(currentTime)
-                .mapToDouble(AggregatedStats::getMax)
-                .max().orElseThrow(NoRecordedTransactionException::new);
+    public long removeStaleTransactions(Instant currentTime) {
+        long removedTransactions = removeStaleBuckets(statisticsByTime,
+                roundToCeilingSecond(currentTime.toEpochMilli() - retentionInMilliSeconds));
+        if (coarsePrecisionInMs > 0) {
+            // only the coarse buckets ending before the retention, as the one across it may still be in a window
+            removedTransactions += removeStaleBuckets(coarseStatisticsByTime,
+                    roundDown(currentTime.toEpochMilli() - retentionInMilliSeconds, coarsePrecisionInMs) - 1);
+            final long watermark = roundDown(currentTime.toEpochMilli() - fineHorizonInMs, coarsePrecisionInMs)
+                    * coarsePrecisionInMs;
+            if (watermark > compactedUntil || hasFineBucketBefore(compactedUntil)) {
+                compact(watermark);
+            }
+        }
+        return removedTransactions;
     }
 
-    @Override
-    public Long getCount(Instant currentTime) {
-        return getRequiredStats(currentTime)
-                .mapToLong(AggregatedStats::getCount)
-                .sum();
+    private boolean hasFineBucketBefore(long timeInMs) {
+        final Map.Entry<Long, AggregatedStats> oldestBucket = statisticsByTime.firstEntry();
+        return oldestBucket != null && oldestBucket.getKey() * precisionInMs < timeInMs;
     }
 
-    @Override
-    public long removeStaleTransactions(Instant currentTime) {
-        final Long afterThis = roundToCeilingSecond(currentTime.toEpochMilli() - transactionValidityInMilliSeconds);
-        final Long untilThis = statisticsByTime.floorKey(afterThis);
-        final Long oldestKey = statisticsByTime.firstKey();
+    private long removeStaleBuckets(ConcurrentSkipListMap<Long, AggregatedStats> buckets, Long afterThis) {
+        final Long untilThis = buckets.floorKey(afterThis);
 
         if (untilThis == null) {
             return 0;
         }
 
+        final long currentGeneration = generation.get();
         final Set<Long> keysToRemove = new HashSet<>();
         final AtomicLong totalCount = new AtomicLong();
-        statisticsByTime.subMap(oldestKey, true, untilThis, true)
+        buckets.headMap(untilThis, true)
                 .forEach((key, value) -> {
-                    totalCount.addAndGet(value.getCount());
+                    if (value.getGeneration() == currentGeneration && !value.isRetired()) {
+                        totalCount.addAndGet(value.getCount());
+                    }
+                    value.retire();
                     keysToRemove.add(key);
                 });
 
-        statisticsByTime.keySet().removeAll(keysToRemove);
+        buckets.keySet().removeAll(keysToRemove);
         return totalCount.get();
     }
 
+    /**
+     * Moves the fine buckets older than given watermark, rounded to a coarse bucket, into the coarse buckets
+     */
+    private void compact(long watermark) {
+        final Lock lock = compactionLock.writeLock();
+        lock.lock();
+        try {
+            if (watermark > compactedUntil) {
+                compactedUntil = watermark;
+            }
+            final long currentGeneration = generation.get();
+            statisticsByTime.headMap(compactedUntil / precisionInMs, false)
+                    .forEach((key, bucket) -> {
+                        bucket.retire();
+                        if (bucket.getGeneration() == currentGeneration) {
+                            mergeIntoCoarseBucket(roundDown(key * precisionInMs, coarsePrecisionInMs), bucket,
+                                    currentGeneration);
+                        }
+                        statisticsByTime.remove(key, bucket);
+                    });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void mergeIntoCoarseBucket(Long bucketKey, AggregatedStats stats, long currentGeneration) {
+        while (true) {
+            final AggregatedStats existingValue = coarseStatisticsByTime.get(bucketKey);
+            if (existingValue != null && existingValue.getGeneration() >= currentGeneration) {
+                existingValue.merge(stats);
+                return;
+            }
+            final AggregatedStats bucket = new AggregatedStats(currentGeneration, topK, distinctCountPrecision);
+            bucket.merge(stats);
+            if (existingValue == null
+                    ? coarseStatisticsByTime.putIfAbsent(bucketKey, bucket) == null
+                    : coarseStatisticsByTime.replace(bucketKey, existingValue, bucket)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        generation.incrementAndGet();
+    }
+
     @Override
     public long getTransactionValidityInMilliSeconds() {
         return transactionValidityInMilliSeconds;
     }
 
-    private static class AggregatedStats {
-
-        private Double sum = 0.0;
-        private Double max = null;
-        private Double min = null;
-        private Integer count = 0;
+    @Override
+    public long getRetentionInMilliSeconds() {
+        return retentionInMilliSeconds;
+    }
 
-        static AggregatedStats of(Double amount) {
-            final AggregatedStats aggregatedStats = new AggregatedStats();
-            aggregatedStats.aggregateIncrementally(amount);
-            return aggregatedStats;
+    @Override
+    public long getWindowEdgeErrorInMilliSeconds(Instant currentTime) {
+        final long windowEnd = currentTime.toEpochMilli();
+        final long windowStart = windowEnd - transactionValidityInMilliSeconds;
+        long edgeError = 0;
+        final int startBucketWidth = widthOfBucketContaining(windowStart);
+        if (startBucketWidth > 0) {
+            edgeError += windowStart - roundDown(windowStart, startBucketWidth) * startBucketWidth;
         }
-
-        synchronized void aggregateIncrementally(Double amount) {
-            sum += amount;
-            max = (max != null && max > amount) ? max : amount;
-            min = (min != null && min < amount) ? min : amount;
-            count++;
+        final int endBucketWidth = widthOfBucketContaining(windowEnd);
+        if (endBucketWidth > 0) {
+            edgeError += (roundDown(windowEnd, endBucketWidth) + 1) * endBucketWidth - 1 - windowEnd;
         }
+        return edgeError;
+    }
 
-        Double getSum() {
-            return sum;
+    /**
+     * Returns the width of the recorded bucket containing given time, or 0 when there is none
+     */
+    private int widthOfBucketContaining(long timeInMs) {
+        final long currentGeneration = generation.get();
+        if (coarsePrecisionInMs > 0) {
+            final AggregatedStats coarseBucket = coarseStatisticsByTime.get(roundDown(timeInMs, coarsePrecisionInMs));
+            if (coarseBucket != null && coarseBucket.getGeneration() == currentGeneration) {
+                return coarsePrecisionInMs;
+            }
         }
-
-        Double getMax() {
-            return max;
+        final AggregatedStats bucket = statisticsByTime.get(roundToCeilingSecond(timeInMs));
+        if (bucket != null && bucket.getGeneration() == currentGeneration && !bucket.isRetired()) {
+            return precisionInMs;
         }
+        return 0;
+    }
 
-        Double getMin() {
-            return min;
-        }
+    /**
+     * Returns the total number of retained buckets
+     */
+    int bucketCount() {
+        return statisticsByTime.size() + coarseStatisticsByTime.size();
+    }
 
-        Integer getCount() {
-            return count;
-        }
+    private long roundToCeilingSecond(long timeInMs) {
+        return roundDown(timeInMs, precisionInMs);
+    }
+
+    private static long roundDown(long timeInMs, int widthInMs) {
+        return Math.floorDiv(timeInMs, widthInMs);
+    }
 
+    @Override
+    AggregatedStats aggregate(Instant currentTime) {
+        final AggregatedStats windowStats = new AggregatedStats(topK, distinctCountPrecision);
+        forEachWindowBucket(currentTime, (startInMs, widthInMs, stats) -> windowStats.merge(stats));
+        return windowStats;
+    }
+
+    @Override
+    public List<BucketStatistics> getBucketStatistics(Instant currentTime) {
+        final Map<Long, BucketStatistics> buckets = new TreeMap<>();
+        collectWindowBuckets(currentTime, buckets);
+        return new ArrayList<>(buckets.values());
     }
 
-    private Long roundToCeilingSecond(Long timeInMs) {
-        return (long) Math.floor(timeInMs.doubleValue() / precisionInMs);
+    /**
+     * Merges the aggregates of the buckets of the window ending at given time into the given ones, keyed by the start
+     * of their bucket
+     */
+    void collectWindowBuckets(Instant currentTime, Map<Long, BucketStatistics> buckets) {
+        forEachWindowBucket(currentTime, (startInMs, widthInMs, stats) -> buckets.merge(startInMs,
+                stats.toBucketStatistics(startInMs, widthInMs), BucketStatistics::merge));
     }
 
-    private Stream<AggregatedStats> getRequiredStats(Instant currentTime) {
+    /**
+     * Passes every bucket of the current generation which is valid at given time to the consumer
+     */
+    private void forEachWindowBucket(Instant currentTime, WindowBucketConsumer consumer) {
+        if (coarsePrecisionInMs <= 0) {
+            forEachFineWindowBucket(currentTime, generation.get(), consumer);
+            return;
+        }
+        final Lock lock = compactionLock.readLock();
+        lock.lock();
+        try {
+            final long currentGeneration = generation.get();
+            forEachFineWindowBucket(currentTime, currentGeneration, consumer);
+            forEachCoarseWindowBucket(currentTime, currentGeneration, consumer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forEachFineWindowBucket(Instant currentTime, long currentGeneration, WindowBucketConsumer consumer) {
         final Long untilNow = roundToCeilingSecond(currentTime.toEpochMilli());
         final Long afterThis = roundToCeilingSecond(currentTime.toEpochMilli() - transactionValidityInMilliSeconds);
-        return statisticsByTime.subMap(afterThis, true, untilNow, true)
-                .values()
-                .stream();
+        statisticsByTime.subMap(afterThis, true, untilNow, true)
+                .forEach((key, stats) -> {
+                    if (stats.getGeneration() == currentGeneration && !stats.isRetired()) {
+                        consumer.accept(key * precisionInMs, precisionInMs, stats);
+                    }
+                });
+    }
+
+    private void forEachCoarseWindowBucket(Instant currentTime, long currentGeneration,
+                                           WindowBucketConsumer consumer) {
+        coarseStatisticsByTime.subMap(
+                roundDown(currentTime.toEpochMilli() - transactionValidityInMilliSeconds, coarsePrecisionInMs), true,
+                roundDown(currentTime.toEpochMilli(), coarsePrecisionInMs), true)
+                .forEach((key, stats) -> {
+                    if (stats.getGeneration() == currentGeneration) {
+                        consumer.accept(key * coarsePrecisionInMs, coarsePrecisionInMs, stats);
+                    }
+                });
+    }
+
+    @Override
+    long bucketKeyOf(long timestampInMs) {
+        return roundToCeilingSecond(timestampInMs);
+    }
+
+    @Override
+    Set<Long> bucketKeys() {
+        final long currentGeneration = generation.get();
+        return statisticsByTime.entrySet()
+                .stream()
+                .filter(entry -> entry.getValue().getGeneration() == currentGeneration)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    AggregatedStats bucketSnapshot(long bucketKey) {
+        final AggregatedStats stats = statisticsByTime.get(bucketKey);
+        return stats != null && stats.getGeneration() == generation.get() ? stats.snapshot() : null;
+    }
+
+    @Override
+    void replaceBucket(long bucketKey, AggregatedStats stats) {
+        final AggregatedStats replacedBucket;
+        if (stats == null) {
+            replacedBucket = statisticsByTime.remove(bucketKey);
+        } else {
+            final AggregatedStats bucket = new AggregatedStats(generation.get(), topK, distinctCountPrecision);
+            bucket.merge(stats);
+            replacedBucket = statisticsByTime.put(bucketKey, bucket);
+        }
+        if (replacedBucket != null) {
+            replacedBucket.retire();
+        }
+    }
+
+    @FunctionalInterface
+    private interface WindowBucketConsumer {
+        void accept(long startInMs, int widthInMs, AggregatedStats stats);
+    }
+
+    private static final class RecentBucket {
+        private final long key;
+        private final AggregatedStats stats;
+
+        RecentBucket(long key, AggregatedStats stats) {
+            this.key = key;
+            this.stats = stats;
+        }
     }
 }
@@ -0,0 +1,214 @@
+package com.n26.repository.impl;
+
+import com.n26.model.BucketStatistics;
+import com.n26.repository.ReadOnlyRepositoryException;
+import com.n26.repository.ReplicableTransactionRepository;
+import com.n26.repository.RepositoryProperties;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ShardedTransactionRepository} which keeps track of the buckets changed by saves, so that their state can be
+ * streamed to a replica. Since the full state of a changed bucket is written rather than the amounts added to it,
+ * applying the same change twice is harmless and a replica which missed changes is healed by a full resync.
+ * <p>
+ * A save records the transaction first and marks its bucket as changed afterwards, while {@link #writeChanges}
+ * unmarks a bucket before copying it, so a transaction missing from the written copy is always written by the next
+ * call.
+ * <p>
+ * A replica applies the buckets of a reset to a new repository, which then replaces its current one at once, so that
+ * reads never see the state between the reset and the buckets that follow it.
+ * <p>
+ * Buckets are identified by their key at {@link RepositoryProperties#getPrecisionInMs()}, so coarse buckets are not
+ * supported.
+ */
+public class ReplicatingTransactionRepository extends AbstractAggregatingTransactionRepository
+        implements ReplicableTransactionRepository {
+
+    private final RepositoryProperties properties;
+
+    private volatile ShardedTransactionRepository delegate;
+
+    private final boolean readOnly;
+
+    private final int precisionInMs;
+
+    private final int topK;
+
+    private final int distinctCountPrecision;
+
+    private final Set<Long> changedBuckets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Epoch milli seconds of the oldest change which has not been written yet, or 0 when there is none
+     */
+    private final AtomicLong oldestUnwrittenChange = new AtomicLong();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicBoolean fullResyncRequested = new AtomicBoolean(true);
+
+    private long lastWrittenGeneration = 0;
+
+    /**
+     * @param readOnly whether the repository only mirrors another one, rejecting saves and deletions
+     */
+    public ReplicatingTransactionRepository(RepositoryProperties properties, boolean readOnly) {
+        if (properties.getCoarsePrecisionInMs() > 0) {
+            throw new IllegalArgumentException("Replicated buckets cannot be merged into coarse buckets");
+        }
+        this.properties = properties;
+        this.delegate = new ShardedTransactionRepository(properties);
+        this.readOnly = readOnly;
+        this.precisionInMs = properties.getPrecisionInMs();
+        this.topK = properties.getTopK();
+        this.distinctCountPrecision = properties.getDistinctCountPrecision();
+    }
+
+    @Override
+    void record(double amount, long timestamp, boolean hasAccount, long accountHash) {
+        if (readOnly) {
+            throw new ReadOnlyRepositoryException();
+        }
+        delegate.record(amount, timestamp, hasAccount, accountHash);
+        changedBuckets.add(delegate.bucketKeyOf(timestamp));
+        if (oldestUnwrittenChange.get() == 0) {
+            oldestUnwrittenChange.compareAndSet(0, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public long removeStaleTransactions(Instant currentTime) {
+        return delegate.removeStaleTransactions(currentTime);
+    }
+
+    /**
+     * Deletes the transactions before moving to the next generation, so that a {@link #writeChanges} which sees the
+     * new generation never writes buckets recorded before the deletion
+     */
+    @Override
+    public void deleteAll() {
+        if (readOnly) {
+            throw new ReadOnlyRepositoryException();
+        }
+        delegate.deleteAll();
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public long getWindowEdgeErrorInMilliSeconds(Instant currentTime) {
+        return delegate.getWindowEdgeErrorInMilliSeconds(currentTime);
+    }
+
+    @Override
+    public List<BucketStatistics> getBucketStatistics(Instant currentTime) {
+        return delegate.getBucketStatistics(currentTime);
+    }
+
+    @Override
+    public long getTransactionValidityInMilliSeconds() {
+        return delegate.getTransactionValidityInMilliSeconds();
+    }
+
+    @Override
+    public long getRetentionInMilliSeconds() {
+        return delegate.getRetentionInMilliSeconds();
+    }
+
+    @Override
+    public synchronized int writeChanges(DataOutput out) throws IOException {
+        final long currentGeneration = generation.get();
+        final boolean reset = fullResyncRequested.getAndSet(false) || currentGeneration != lastWrittenGeneration;
+        lastWrittenGeneration = currentGeneration;
+        if (reset) {
+            changedBuckets.addAll(delegate.bucketKeys());
+        }
+
+        final long oldestChange = oldestUnwrittenChange.getAndSet(0);
+        final List<Long> bucketKeys = new ArrayList<>();
+        final List<AggregatedStats> buckets = new ArrayList<>();
+        for (Long bucketKey : changedBuckets) {
+            if (changedBuckets.remove(bucketKey)) {
+                bucketKeys.add(bucketKey);
+                buckets.add(delegate.bucketSnapshot(bucketKey));
+            }
+        }
+
+        out.writeInt(precisionInMs);
+        out.writeBoolean(reset);
+        out.writeLong(oldestChange);
+        out.writeInt(bucketKeys.size());
+        for (int i = 0; i < bucketKeys.size(); i++) {
+            out.writeLong(bucketKeys.get(i));
+            final AggregatedStats bucket = buckets.get(i);
+            out.writeBoolean(bucket != null);
+            if (bucket != null) {
+                bucket.writeTo(out);
+            }
+        }
+        return bucketKeys.size();
+    }
+
+    @Override
+    public void requestFullResync() {
+        fullResyncRequested.set(true);
+    }
+
+    @Override
+    public long applyChanges(DataInput in) throws IOException {
+        final int writtenPrecisionInMs = in.readInt();
+        if (writtenPrecisionInMs != precisionInMs) {
+            throw new IOException("Cannot apply buckets of " + writtenPrecisionInMs + " ms to buckets of "
+                    + precisionInMs + " ms");
+        }
+        final boolean reset = in.readBoolean();
+        final ShardedTransactionRepository target = reset ? new ShardedTransactionRepository(properties) : delegate;
+        final long oldestChange = in.readLong();
+        final int bucketCount = in.readInt();
+        for (int i = 0; i < bucketCount; i++) {
+            final long bucketKey = in.readLong();
+            final AggregatedStats bucket = in.readBoolean()
+                    ? AggregatedStats.readFrom(in, 0, topK, distinctCountPrecision)
+                    : null;
+            target.replaceBucket(bucketKey, bucket);
+        }
+        if (reset) {
+            delegate = target;
+        }
+        return oldestChange;
+    }
+
+    @Override
+    AggregatedStats aggregate(Instant currentTime) {
+        return delegate.aggregate(currentTime);
+    }
+
+    @Override
+    long bucketKeyOf(long timestampInMs) {
+        return delegate.bucketKeyOf(timestampInMs);
+    }
+
+    @Override
+    Set<Long> bucketKeys() {
+        return delegate.bucketKeys();
+    }
+
+    @Override
+    AggregatedStats bucketSnapshot(long bucketKey) {
+        return delegate.bucketSnapshot(bucketKey);
+    }
+
+    @Override
+    void replaceBucket(long bucketKey, AggregatedStats stats) {
+        delegate.replaceBucket(bucketKey, stats);
+    }
+}
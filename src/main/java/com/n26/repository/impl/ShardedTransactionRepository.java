@@ -0,0 +1,181 @@
+package com.n26.repository.impl;
+
+import com.n26.model.BucketStatistics;
+import com.n26.repository.RepositoryProperties;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads the writes over independent {@link InMemoryTransactionRepository} shards, so that concurrent writers do not
+ * contend on the same buckets. Every writer thread is pinned to a shard on its first save (round-robin), and reads
+ * merge the aggregates of all the shards. The shards share a single generation, so that {@link #deleteAll()} resets
+ * all of them at once, and an equal share of {@link RepositoryProperties#getMaxBuckets()} each.
+ */
+public class ShardedTransactionRepository extends AbstractAggregatingTransactionRepository {
+
+    private final InMemoryTransactionRepository[] shards;
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ThreadLocal<InMemoryTransactionRepository> shardOfThread = ThreadLocal.withInitial(this::assignShard);
+
+    private final long transactionValidityInMilliSeconds;
+
+    private final long retentionInMilliSeconds;
+
+    private final int topK;
+
+    private final int distinctCountPrecision;
+
+    public ShardedTransactionRepository(int shardCount, int precisionInMs, long transactionValidityInMilliSeconds) {
+        this(RepositoryProperties.of(precisionInMs, transactionValidityInMilliSeconds), shardCount);
+    }
+
+    public ShardedTransactionRepository(RepositoryProperties properties) {
+        this(properties, properties.getShards());
+    }
+
+    private ShardedTransactionRepository(RepositoryProperties properties, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive but was " + shardCount);
+        }
+        this.shards = new InMemoryTransactionRepository[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryTransactionRepository(properties, generation,
+                    properties.getMaxBuckets() / shardCount);
+        }
+        this.transactionValidityInMilliSeconds = properties.getTransactionValidityInMs();
+        this.retentionInMilliSeconds = properties.getRetentionInMs();
+        this.topK = properties.getTopK();
+        this.distinctCountPrecision = properties.getDistinctCountPrecision();
+    }
+
+    @Override
+    void record(double amount, long timestamp, boolean hasAccount, long accountHash) {
+        shardOfThread.get().record(amount, timestamp, hasAccount, accountHash);
+    }
+
+    @Override
+    public long removeStaleTransactions(Instant currentTime) {
+        long removedTransactions = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            removedTransactions += shard.removeStaleTransactions(currentTime);
+        }
+        return removedTransactions;
+    }
+
+    /**
+     * Returns the largest edge error of the shards, which hold buckets of the same width unless a shard recorded no
+     * transaction at an edge
+     */
+    @Override
+    public long getWindowEdgeErrorInMilliSeconds(Instant currentTime) {
+        long edgeError = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            edgeError = Math.max(edgeError, shard.getWindowEdgeErrorInMilliSeconds(currentTime));
+        }
+        return edgeError;
+    }
+
+    @Override
+    public void deleteAll() {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public long getTransactionValidityInMilliSeconds() {
+        return transactionValidityInMilliSeconds;
+    }
+
+    @Override
+    public long getRetentionInMilliSeconds() {
+        return retentionInMilliSeconds;
+    }
+
+    /**
+     * Returns the total number of buckets retained by the shards
+     */
+    int bucketCount() {
+        int bucketCount = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            bucketCount += shard.bucketCount();
+        }
+        return bucketCount;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    AggregatedStats aggregate(Instant currentTime) {
+        final AggregatedStats windowStats = new AggregatedStats(topK, distinctCountPrecision);
+        for (InMemoryTransactionRepository shard : shards) {
+            windowStats.merge(shard.aggregate(currentTime));
+        }
+        return windowStats;
+    }
+
+    @Override
+    public List<BucketStatistics> getBucketStatistics(Instant currentTime) {
+        final Map<Long, BucketStatistics> buckets = new TreeMap<>();
+        for (InMemoryTransactionRepository shard : shards) {
+            shard.collectWindowBuckets(currentTime, buckets);
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    @Override
+    long bucketKeyOf(long timestampInMs) {
+        return shards[0].bucketKeyOf(timestampInMs);
+    }
+
+    @Override
+    Set<Long> bucketKeys() {
+        final Set<Long> bucketKeys = new HashSet<>();
+        for (InMemoryTransactionRepository shard : shards) {
+            bucketKeys.addAll(shard.bucketKeys());
+        }
+        return bucketKeys;
+    }
+
+    @Override
+    AggregatedStats bucketSnapshot(long bucketKey) {
+        AggregatedStats mergedStats = null;
+        for (InMemoryTransactionRepository shard : shards) {
+            final AggregatedStats stats = shard.bucketSnapshot(bucketKey);
+            if (stats != null) {
+                if (mergedStats == null) {
+                    mergedStats = new AggregatedStats(topK, distinctCountPrecision);
+                }
+                mergedStats.merge(stats);
+            }
+        }
+        return mergedStats;
+    }
+
+    /**
+     * Replaces the bucket in the first shard and removes it from all the others
+     */
+    @Override
+    void replaceBucket(long bucketKey, AggregatedStats stats) {
+        shards[0].replaceBucket(bucketKey, stats);
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].replaceBucket(bucketKey, null);
+        }
+    }
+
+    private InMemoryTransactionRepository assignShard() {
+        return shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+    }
+}
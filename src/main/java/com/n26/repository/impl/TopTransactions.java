@@ -0,0 +1,124 @@
+package com.n26.repository.impl;
+
+import com.n26.model.Transaction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fixed capacity min-heap of the largest amounts seen so far along with their timestamps, kept in primitive arrays so
+ * that recording an amount never allocates. Amounts not larger than the smallest retained one are rejected in O(1).
+ * <p>
+ * Not thread-safe, guarded by the owning {@link AggregatedStats}.
+ */
+class TopTransactions {
+
+    private final double[] amounts;
+    private final long[] timestamps;
+    private int size = 0;
+
+    TopTransactions(int capacity) {
+        this.amounts = new double[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    void offer(double amount, long timestamp) {
+        if (size < amounts.length) {
+            amounts[size] = amount;
+            timestamps[size] = timestamp;
+            siftUp(size++);
+        } else if (size > 0 && amount > amounts[0]) {
+            amounts[0] = amount;
+            timestamps[0] = timestamp;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers all the retained transactions of the given heap to this one
+     */
+    void merge(TopTransactions other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.amounts[i], other.timestamps[i]);
+        }
+    }
+
+    TopTransactions copy() {
+        final TopTransactions copy = new TopTransactions(amounts.length);
+        System.arraycopy(amounts, 0, copy.amounts, 0, size);
+        System.arraycopy(timestamps, 0, copy.timestamps, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(amounts[i]);
+            out.writeLong(timestamps[i]);
+        }
+    }
+
+    /**
+     * Offers all the transactions written by {@link #writeTo} to this heap, which may have a different capacity
+     */
+    void readFrom(DataInput in) throws IOException {
+        final int transactionCount = in.readInt();
+        for (int i = 0; i < transactionCount; i++) {
+            offer(in.readDouble(), in.readLong());
+        }
+    }
+
+    /**
+     * Returns the retained transactions ordered by descending amount
+     */
+    List<Transaction> toDescendingList() {
+        final List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(new Transaction(amounts[i], timestamps[i]));
+        }
+        transactions.sort(Collections.reverseOrder((first, second) ->
+                Double.compare(first.getAmount(), second.getAmount())));
+        return transactions;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (amounts[parent] <= amounts[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int smallest = (right < size && amounts[right] < amounts[left]) ? right : left;
+            if (amounts[index] <= amounts[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        final double amount = amounts[first];
+        amounts[first] = amounts[second];
+        amounts[second] = amount;
+        final long timestamp = timestamps[first];
+        timestamps[first] = timestamps[second];
+        timestamps[second] = timestamp;
+    }
+}
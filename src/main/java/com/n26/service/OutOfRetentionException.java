@@ -0,0 +1,7 @@
+package com.n26.service;
+
+public class OutOfRetentionException extends Exception {
+    public OutOfRetentionException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,33 @@
 package com.n26.service;
 
+import com.n26.model.BucketStatistics;
 import com.n26.repository.NoRecordedTransactionException;
 import com.n26.vo.StatisticsVO;
+import com.n26.vo.TransactionVO;
+
+import java.time.Instant;
+import java.util.List;
 
 public interface StatisticsService {
 
     StatisticsVO getStatistics() throws NoRecordedTransactionException;
 
+    /**
+     * Gets the statistics of the window ending at given instant, which must not be in the future nor older than the
+     * retention of the repository allows
+     */
+    StatisticsVO getStatistics(Instant at) throws NoRecordedTransactionException, OutOfRetentionException;
+
+    List<TransactionVO> getLargestTransactions();
+
+    List<TransactionVO> getLargestTransactions(Instant at) throws OutOfRetentionException;
+
+    /**
+     * Gets the aggregates of the buckets of the current window, so that consumers can merge them at their own
+     * resolution
+     */
+    List<BucketStatistics> getBucketStatistics();
+
+    List<BucketStatistics> getBucketStatistics(Instant at) throws OutOfRetentionException;
+
 }
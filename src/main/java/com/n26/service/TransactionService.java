@@ -4,6 +4,8 @@ import com.n26.vo.TransactionVO;
 
 public interface TransactionService {
 
-    void save(TransactionVO transactionVO) throws StaleTransactionException;
+    TransactionValidationResult save(TransactionVO transactionVO);
+
+    void deleteAll();
 
 }
@@ -0,0 +1,46 @@
+package com.n26.service;
+
+/**
+ * Outcome of saving a transaction. Rejections are reported as values instead of exceptions, since a misbehaving
+ * producer may send thousands of them per second.
+ */
+public enum TransactionValidationResult {
+
+    ACCEPTED("accepted"),
+
+    /**
+     * The transaction is older than the validity of the statistics
+     */
+    STALE("stale"),
+
+    /**
+     * The transaction is dated in the future
+     */
+    IN_FUTURE("in_future");
+
+    private final String reason;
+
+    TransactionValidationResult(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Validates the time of a transaction against the current time and the validity of the statistics
+     */
+    public static TransactionValidationResult of(long timestamp, long currentTimeInMs, long validityInMs) {
+        if (currentTimeInMs - timestamp > validityInMs) {
+            return STALE;
+        } else if (currentTimeInMs - timestamp < 0) {
+            return IN_FUTURE;
+        }
+        return ACCEPTED;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+}
@@ -1,14 +1,20 @@
 package com.n26.service.impl;
 
+import com.n26.model.BucketStatistics;
+import com.n26.model.WindowStatistics;
 import com.n26.repository.NoRecordedTransactionException;
 import com.n26.repository.TransactionRepository;
+import com.n26.service.OutOfRetentionException;
 import com.n26.service.StatisticsService;
 import com.n26.vo.StatisticsVO;
+import com.n26.vo.TransactionVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class StatisticsServiceImpl implements StatisticsService {
@@ -25,13 +31,68 @@ public class StatisticsServiceImpl implements StatisticsService {
 
     @Override
     public StatisticsVO getStatistics() throws NoRecordedTransactionException {
+        return computeStatistics(clock.instant());
+    }
+
+    @Override
+    public StatisticsVO getStatistics(Instant at) throws NoRecordedTransactionException, OutOfRetentionException {
+        checkRetained(at);
+        return computeStatistics(at);
+    }
+
+    @Override
+    public List<TransactionVO> getLargestTransactions() {
+        return computeLargestTransactions(clock.instant());
+    }
+
+    @Override
+    public List<TransactionVO> getLargestTransactions(Instant at) throws OutOfRetentionException {
+        checkRetained(at);
+        return computeLargestTransactions(at);
+    }
+
+    @Override
+    public List<BucketStatistics> getBucketStatistics() {
+        return transactionRepository.getBucketStatistics(clock.instant());
+    }
+
+    @Override
+    public List<BucketStatistics> getBucketStatistics(Instant at) throws OutOfRetentionException {
+        checkRetained(at);
+        return transactionRepository.getBucketStatistics(at);
+    }
+
+    private void checkRetained(Instant at) throws OutOfRetentionException {
         final Instant currentTime = clock.instant();
+        if (at.isAfter(currentTime)) {
+            throw new OutOfRetentionException("Statistics cannot be queried for the future");
+        }
+        final long queryableHistory = transactionRepository.getRetentionInMilliSeconds()
+                - transactionRepository.getTransactionValidityInMilliSeconds();
+        if (currentTime.toEpochMilli() - at.toEpochMilli() > queryableHistory) {
+            throw new OutOfRetentionException("Statistics are retained for the last " + queryableHistory + " ms only");
+        }
+    }
+
+    private StatisticsVO computeStatistics(Instant currentTime) throws NoRecordedTransactionException {
+        final WindowStatistics statistics = transactionRepository.getStatistics(currentTime);
         StatisticsVO statisticsVO = new StatisticsVO();
-        statisticsVO.setAvg(transactionRepository.getAverage(currentTime));
-        statisticsVO.setSum(transactionRepository.getSum(currentTime));
-        statisticsVO.setMin(transactionRepository.getMinimum(currentTime));
-        statisticsVO.setMax(transactionRepository.getMaximum(currentTime));
-        statisticsVO.setCount(transactionRepository.getCount(currentTime));
+        statisticsVO.setAvg(statistics.getAverage());
+        statisticsVO.setSum(statistics.getSum());
+        statisticsVO.setMin(statistics.getMin());
+        statisticsVO.setMax(statistics.getMax());
+        statisticsVO.setCount(statistics.getCount());
+        statisticsVO.setVariance(statistics.getVariance());
+        statisticsVO.setStddev(statistics.getStandardDeviation());
+        statisticsVO.setUniqueAccounts(statistics.getDistinctAccountCount());
+        statisticsVO.setEdgeErrorInMs(statistics.getEdgeErrorInMs());
         return statisticsVO;
     }
+
+    private List<TransactionVO> computeLargestTransactions(Instant currentTime) {
+        return transactionRepository.getLargestTransactions(currentTime)
+                .stream()
+                .map(transaction -> new TransactionVO(transaction.getAmount(), transaction.getTimestamp()))
+                .collect(Collectors.toList());
+    }
 }
@@ -2,39 +2,66 @@ package com.n26.service.impl;
 
 import com.n26.model.Transaction;
 import com.n26.repository.TransactionRepository;
-import com.n26.service.StaleTransactionException;
 import com.n26.service.TransactionService;
+import com.n26.service.TransactionValidationResult;
 import com.n26.vo.TransactionVO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+    static final String REJECTED_TRANSACTIONS_METRIC = "transactions.rejected";
+
     private final TransactionRepository repository;
 
     private final Clock clock;
 
+    private final Map<TransactionValidationResult, Counter> rejectionCounters = new EnumMap<>(
+            TransactionValidationResult.class);
+
     @Autowired
-    public TransactionServiceImpl(TransactionRepository repository, Clock clock) {
+    public TransactionServiceImpl(TransactionRepository repository, Clock clock, MeterRegistry meterRegistry) {
         this.repository = repository;
         this.clock = clock;
+        for (TransactionValidationResult result : TransactionValidationResult.values()) {
+            if (!result.isAccepted()) {
+                rejectionCounters.put(result, meterRegistry.counter(REJECTED_TRANSACTIONS_METRIC,
+                        "reason", result.getReason()));
+            }
+        }
     }
 
     @Override
-    public void save(TransactionVO transactionVO) throws StaleTransactionException {
+    public TransactionValidationResult save(TransactionVO transactionVO) {
         final Instant currentInstant = clock.instant();
-        if (currentInstant.toEpochMilli() - transactionVO.getTimestamp() > repository.getTransactionValidityInMilliSeconds()) {
-            throw new StaleTransactionException("Transaction is stale");
-        } else if (currentInstant.toEpochMilli() - transactionVO.getTimestamp() < 0) {
-            throw new StaleTransactionException("Transaction is invalid");
+        final TransactionValidationResult result = validate(transactionVO.getTimestamp(), currentInstant);
+        if (!result.isAccepted()) {
+            rejectionCounters.get(result).increment();
+            return result;
         }
 
-        Transaction transaction = new Transaction(transactionVO.getAmount(), transactionVO.getTimestamp());
+        Transaction transaction = new Transaction(transactionVO.getAmount(), transactionVO.getTimestamp(),
+                transactionVO.getAccountId());
         repository.save(transaction);
         repository.removeStaleTransactions(currentInstant);
+        return result;
+    }
+
+    @Override
+    public void deleteAll() {
+        repository.deleteAll();
+    }
+
+    private TransactionValidationResult validate(long timestamp, Instant currentInstant) {
+        return TransactionValidationResult.of(timestamp, currentInstant.toEpochMilli(),
+                repository.getTransactionValidityInMilliSeconds());
     }
 }
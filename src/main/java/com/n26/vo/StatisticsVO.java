@@ -12,6 +12,14 @@ public class StatisticsVO {
 
     private Double avg;
 
+    private Double variance;
+
+    private Double stddev;
+
+    private Long uniqueAccounts;
+
+    private Long edgeErrorInMs;
+
     public StatisticsVO() {
     }
 
@@ -54,4 +62,36 @@ public class StatisticsVO {
     public void setAvg(Double avg) {
         this.avg = avg;
     }
+
+    public Double getVariance() {
+        return variance;
+    }
+
+    public void setVariance(Double variance) {
+        this.variance = variance;
+    }
+
+    public Double getStddev() {
+        return stddev;
+    }
+
+    public void setStddev(Double stddev) {
+        this.stddev = stddev;
+    }
+
+    public Long getUniqueAccounts() {
+        return uniqueAccounts;
+    }
+
+    public void setUniqueAccounts(Long uniqueAccounts) {
+        this.uniqueAccounts = uniqueAccounts;
+    }
+
+    public Long getEdgeErrorInMs() {
+        return edgeErrorInMs;
+    }
+
+    public void setEdgeErrorInMs(Long edgeErrorInMs) {
+        this.edgeErrorInMs = edgeErrorInMs;
+    }
 }
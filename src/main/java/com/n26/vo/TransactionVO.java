@@ -6,6 +6,8 @@ public class TransactionVO {
 
     private Long timestamp;
 
+    private String accountId;
+
     public TransactionVO() {
     }
 
@@ -14,6 +16,11 @@ public class TransactionVO {
         this.timestamp = timestamp;
     }
 
+    public TransactionVO(Double amount, Long timestamp, String accountId) {
+        this(amount, timestamp);
+        this.accountId = accountId;
+    }
+
     public Double getAmount() {
         return amount;
     }
@@ -29,4 +36,12 @@ public class TransactionVO {
     public void setTimestamp(Long timestamp) {
         this.timestamp = timestamp;
     }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
 }
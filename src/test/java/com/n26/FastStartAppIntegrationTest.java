@@ -0,0 +1,55 @@
+package com.n26;
+
+import com.n26.util.StatisticsDTO;
+import com.n26.vo.TransactionVO;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FastStartApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class FastStartAppIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void shouldServeTransactionsAndStatistics() {
+        // having
+        final long now = System.currentTimeMillis();
+        restTemplate.postForEntity("/transactions", new TransactionVO(10.0, now), Object.class);
+        final ResponseEntity<Object> response = restTemplate.postForEntity("/transactions",
+                new TransactionVO(30.0, now), Object.class);
+
+        // when
+        final ResponseEntity<StatisticsDTO> statistics = restTemplate.getForEntity("/statistics",
+                StatisticsDTO.class);
+
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+        assertThat(statistics.getStatusCode(), is(HttpStatus.OK));
+        assertThat(statistics.getBody().count, is(2L));
+        assertThat(statistics.getBody().sum, closeTo(40.0, 0.001));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldExposeHealthEndpoint() {
+        // when
+        final Map<String, String> health = restTemplate.getForObject("/actuator/health", Map.class);
+
+        // then
+        assertThat(health.get("status"), is("UP"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.n26.admission;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class ClientRateLimiterTest {
+
+    private static final long NOW = TimeUnit.SECONDS.toNanos(100);
+
+    private AdmissionProperties properties;
+
+    @Before
+    public void setUp() {
+        properties = new AdmissionProperties();
+        properties.setRatePerSecond(10);
+        properties.setBurst(5);
+        properties.setMaxClients(2);
+        properties.setIdleEvictionInMs(1000);
+    }
+
+    @Test
+    public void shouldRejectWhenBurstExceeded() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("client", NOW), is(true));
+        }
+
+        // when
+        final boolean admitted = rateLimiter.tryAcquire("client", NOW);
+
+        // then
+        assertThat(admitted, is(false));
+        assertThat(rateLimiter.tryAcquire("other-client", NOW), is(true));
+    }
+
+    @Test
+    public void shouldAdmitAgainAtSustainedRate() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.tryAcquire("client", NOW);
+        }
+
+        // when
+        final boolean admittedAfterInterval = rateLimiter.tryAcquire("client", NOW + TimeUnit.MILLISECONDS.toNanos(100));
+        final boolean admittedTwice = rateLimiter.tryAcquire("client", NOW + TimeUnit.MILLISECONDS.toNanos(100));
+
+        // then
+        assertThat(admittedAfterInterval, is(true));
+        assertThat(admittedTwice, is(false));
+    }
+
+    @Test
+    public void shouldCountAcceptedAndRejectedPerClient() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        for (int i = 0; i < 7; i++) {
+            rateLimiter.tryAcquire("client", NOW);
+        }
+
+        // when
+        rateLimiter.recordRejection("client");
+        final Map<String, AdmissionCounts> counts = rateLimiter.getCounts();
+
+        // then
+        assertThat(counts.get("client").getAccepted(), is(5L));
+        assertThat(counts.get("client").getRejected(), is(3L));
+    }
+
+    @Test
+    public void shouldEvictIdleClientsWhenSweeping() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        rateLimiter.tryAcquire("idle-client", NOW);
+        rateLimiter.tryAcquire("active-client", NOW + TimeUnit.SECONDS.toNanos(2));
+        rateLimiter.tryAcquire("untracked-client", NOW + TimeUnit.SECONDS.toNanos(2));
+
+        // when
+        rateLimiter.evictIdleClients(NOW + TimeUnit.SECONDS.toNanos(2));
+        rateLimiter.tryAcquire("new-client", NOW + TimeUnit.SECONDS.toNanos(2));
+
+        // then
+        assertThat(rateLimiter.getTrackedClientCount(), is(2));
+        assertThat(rateLimiter.getCounts(), not(hasKey("idle-client")));
+        assertThat(rateLimiter.getCounts(), not(hasKey("untracked-client")));
+        assertThat(rateLimiter.getCounts(), hasKey("new-client"));
+    }
+
+    @Test
+    public void shouldShareLimitOfUntrackedClientsWhenFullOfActiveClients() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        rateLimiter.tryAcquire("client", NOW);
+        rateLimiter.tryAcquire("other-client", NOW);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("new-client-" + i, NOW);
+        }
+
+        // then
+        assertThat(rateLimiter.getTrackedClientCount(), is(2));
+        assertThat(rateLimiter.getCounts().get(ClientRateLimiter.UNTRACKED_CLIENTS).getAccepted(), is(3L));
+    }
+
+    @Test
+    public void shouldNotLimitUntrackedClientByRunawayOfAnotherStripe() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        rateLimiter.tryAcquire("client", NOW);
+        rateLimiter.tryAcquire("other-client", NOW);
+        String otherUntrackedClient = "other-untracked-client";
+        for (int i = 0; rateLimiter.untrackedStripeOf(otherUntrackedClient)
+                == rateLimiter.untrackedStripeOf("runaway-client"); i++) {
+            otherUntrackedClient = "other-untracked-client-" + i;
+        }
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire("runaway-client", NOW);
+        }
+
+        // when
+        final boolean admitted = rateLimiter.tryAcquire(otherUntrackedClient, NOW);
+
+        // then
+        assertThat(admitted, is(true));
+        assertThat(rateLimiter.tryAcquire("runaway-client", NOW), is(false));
+    }
+
+    @Test
+    public void shouldCountRejectionsOfUntrackedClients() {
+        // having
+        final ClientRateLimiter rateLimiter = new ClientRateLimiter(properties, NOW);
+        rateLimiter.tryAcquire("client", NOW);
+        rateLimiter.tryAcquire("other-client", NOW);
+
+        // when
+        rateLimiter.recordRejection("untracked-client");
+
+        // then
+        assertThat(rateLimiter.getCounts().get(ClientRateLimiter.UNTRACKED_CLIENTS).getRejected(), is(1L));
+    }
+}
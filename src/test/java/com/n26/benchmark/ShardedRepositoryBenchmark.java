@@ -0,0 +1,92 @@
+package com.n26.benchmark;
+
+import com.n26.repository.TransactionRepository;
+import com.n26.repository.impl.InMemoryTransactionRepository;
+import com.n26.repository.impl.ShardedTransactionRepository;
+import com.n26.service.TransactionService;
+import com.n26.service.TransactionValidationResult;
+import com.n26.service.impl.TransactionServiceImpl;
+import com.n26.vo.TransactionVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest throughput of the single {@link InMemoryTransactionRepository} against the {@link
+ * ShardedTransactionRepository} for 1 to 64 writer threads, through the {@link TransactionServiceImpl} so that the
+ * removal of stale transactions following every save is measured too.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.n26.benchmark.ShardedRepositoryBenchmark
+ * -Dexec.classpathScope=test}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedRepositoryBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"single", "sharded"})
+    public String repositoryType;
+
+    private TransactionService service;
+
+    private long now;
+
+    @Setup
+    public void setUp() {
+        final TransactionRepository repository = "sharded".equals(repositoryType)
+                ? new ShardedTransactionRepository(Runtime.getRuntime().availableProcessors(), 1000, 60000)
+                : new InMemoryTransactionRepository();
+        now = System.currentTimeMillis();
+        service = new TransactionServiceImpl(repository, Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC),
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public TransactionValidationResult save() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.save(new TransactionVO(1000 * random.nextDouble(), now - random.nextInt(60000)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final StringBuilder report = new StringBuilder(String.format("%-8s %-8s %14s%n", "threads", "type", "ops/us"));
+        for (int threads : THREAD_COUNTS) {
+            final Options options = new OptionsBuilder()
+                    .include(ShardedRepositoryBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            final Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                report.append(String.format("%-8d %-8s %14.3f%n", threads,
+                        result.getParams().getParam("repositoryType"),
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+        System.out.print(report);
+    }
+}
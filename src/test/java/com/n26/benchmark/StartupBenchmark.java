@@ -0,0 +1,162 @@
+package com.n26.benchmark;
+
+import com.n26.App;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the application in a new JVM to the response to its first {@code POST /transactions}, in
+ * either the full or the fast-start mode. Every measurement launches a process, so that the time includes the startup
+ * of the JVM itself, which is what class-data sharing shortens.
+ * <p>
+ * Target: the fast start answers its first request in less than 75% of the time of the full start. The launched
+ * process is set up with system properties:
+ * <ul>
+ * <li>{@code startup.java}: java launcher, the one running the benchmark by default</li>
+ * <li>{@code startup.classpath}: class path, the one of the benchmark by default</li>
+ * <li>{@code startup.jvmArgs}: space separated JVM options, none by default</li>
+ * </ul>
+ * E.g. to measure with the class-data sharing archive of the {@code cds} profile, pass {@code
+ * -Dstartup.java=$JDK11/bin/java -Dstartup.classpath=$PWD/target/task-1.0-SNAPSHOT.jar:$(cat
+ * target/cds/classpath.txt) -Dstartup.jvmArgs=-XX:SharedArchiveFile=target/cds/app.jsa}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.n26.benchmark.StartupBenchmark
+ * -Dexec.classpathScope=test}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String[] SETTINGS = {"startup.java", "startup.classpath", "startup.jvmArgs"};
+
+    private static final long TIMEOUT_IN_MS = 60000;
+
+    @Param({"full", "fast-start"})
+    public String mode;
+
+    private File log;
+
+    private Process process;
+
+    @Setup
+    public void setUp() throws IOException {
+        log = File.createTempFile("startup-benchmark", ".log");
+    }
+
+    @Benchmark
+    public int launchAndServeFirstRequest() throws IOException, InterruptedException {
+        final int port = freePort();
+        process = new ProcessBuilder(command(port))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(log))
+                .start();
+        final URL url = new URL("http://localhost:" + port + "/transactions");
+        final long deadline = System.currentTimeMillis() + TIMEOUT_IN_MS;
+        while (true) {
+            try {
+                return post(url);
+            } catch (IOException e) {
+                if (!process.isAlive() || System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Application did not start, see " + log, e);
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(log.toPath());
+    }
+
+    private List<String> command(int port) {
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("startup.java",
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"));
+        final String jvmArgs = System.getProperty("startup.jvmArgs", "").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split(" +")));
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("startup.classpath",
+                System.getProperty("java.class.path")), App.class.getName(), "--server.port=" + port,
+                "--transaction.fast-start=" + "fast-start".equals(mode), "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int post(URL url) throws IOException {
+        final byte[] body = ("{\"amount\":12.3,\"timestamp\":" + System.currentTimeMillis() + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        final int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_CREATED) {
+            throw new IllegalStateException("First request answered " + status);
+        }
+        return status;
+    }
+
+    /**
+     * Passes the settings on to the forked JVM, which does not inherit the properties set by {@code exec:java}
+     */
+    public static void main(String[] args) throws RunnerException {
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(StartupBenchmark.class.getSimpleName());
+        for (String setting : SETTINGS) {
+            final String value = System.getProperty(setting);
+            if (value != null) {
+                options.jvmArgsAppend("-D" + setting + "=" + value);
+            }
+        }
+        new Runner(options.build()).run();
+    }
+}
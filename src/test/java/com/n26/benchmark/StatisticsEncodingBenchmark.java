@@ -0,0 +1,135 @@
+package com.n26.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n26.controller.helper.BucketStatisticsPacker;
+import com.n26.model.BucketStatistics;
+import com.n26.repository.impl.InMemoryTransactionRepository;
+import com.n26.vo.StatisticsVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding a {@link StatisticsVO} and the {@value #BUCKETS} buckets of a window in JSON, Smile and CBOR, with
+ * the object mappers Spring MVC negotiates them with, against packing the buckets with {@link
+ * BucketStatisticsPacker}. The payload sizes are printed before the benchmarks run.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.n26.benchmark.StatisticsEncodingBenchmark
+ * -Dexec.classpathScope=test}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsEncodingBenchmark {
+
+    private static final int BUCKETS = 60;
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    private final StatisticsVO statistics = statistics();
+
+    private final List<BucketStatistics> buckets = buckets();
+
+    @State(Scope.Benchmark)
+    public static class Encoding {
+
+        @Param({"json", "smile", "cbor"})
+        public String format;
+
+        private ObjectMapper objectMapper;
+
+        @Setup
+        public void setUp() {
+            objectMapper = objectMapperOf(format);
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeStatistics(Encoding encoding) throws JsonProcessingException {
+        return encoding.objectMapper.writeValueAsBytes(statistics);
+    }
+
+    @Benchmark
+    public byte[] encodeBuckets(Encoding encoding) throws JsonProcessingException {
+        return encoding.objectMapper.writeValueAsBytes(buckets);
+    }
+
+    @Benchmark
+    public byte[] packBuckets() {
+        return BucketStatisticsPacker.pack(buckets);
+    }
+
+    private static ObjectMapper objectMapperOf(String format) {
+        switch (format) {
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    private static StatisticsVO statistics() {
+        final StatisticsVO statistics = new StatisticsVO();
+        statistics.setSum(1234567.89);
+        statistics.setAvg(493.8271);
+        statistics.setMax(999.97);
+        statistics.setMin(0.42);
+        statistics.setCount(2500L);
+        statistics.setVariance(83160.2841);
+        statistics.setStddev(288.3752);
+        statistics.setUniqueAccounts(1870L);
+        statistics.setEdgeErrorInMs(0L);
+        return statistics;
+    }
+
+    /**
+     * Buckets of a window with a few hundred random amounts per bucket
+     */
+    private static List<BucketStatistics> buckets() {
+        final InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            for (int i = 0; i < 100 + random.nextInt(400); i++) {
+                repository.save(Math.round(100000 * random.nextDouble()) / 100.0, NOW - 1000 * bucket - 1);
+            }
+        }
+        return repository.getBucketStatistics(Instant.ofEpochMilli(NOW));
+    }
+
+    public static void main(String[] args) throws RunnerException, JsonProcessingException {
+        final List<BucketStatistics> buckets = buckets();
+        System.out.printf("%-8s %12s %12s%n", "format", "statistics", "buckets");
+        for (String format : new String[]{"json", "smile", "cbor"}) {
+            final ObjectMapper objectMapper = objectMapperOf(format);
+            System.out.printf("%-8s %12d %12d%n", format, objectMapper.writeValueAsBytes(statistics()).length,
+                    objectMapper.writeValueAsBytes(buckets).length);
+        }
+        System.out.printf("%-8s %12s %12d%n", "packed", "-", BucketStatisticsPacker.pack(buckets).length);
+        new Runner(new OptionsBuilder()
+                .include(StatisticsEncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
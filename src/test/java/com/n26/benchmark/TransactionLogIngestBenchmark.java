@@ -0,0 +1,144 @@
+package com.n26.benchmark;
+
+import com.n26.ingest.IngestProperties;
+import com.n26.ingest.TransactionLogFormat;
+import com.n26.ingest.TransactionLogIngester;
+import com.n26.repository.impl.ShardedTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Records per second ingested by the {@link TransactionLogIngester} from a log of {@value #RECORDS} valid records
+ * spanning the last minute in time order, in either {@link TransactionLogFormat}, into a {@link
+ * ShardedTransactionRepository}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.n26.benchmark.TransactionLogIngestBenchmark
+ * -Dexec.classpathScope=test}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionLogIngestBenchmark {
+
+    private static final int RECORDS = 1_000_000;
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    @Param({"csv", "binary"})
+    public String format;
+
+    private Path directory;
+
+    private Path checkpointFile;
+
+    private ShardedTransactionRepository repository;
+
+    private TransactionLogIngester ingester;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("transaction-logs");
+        checkpointFile = Files.createTempDirectory("transaction-log-checkpoint").resolve("checkpoint");
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if ("csv".equals(format)) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(directory.resolve("log.csv")))) {
+                for (int i = 0; i < RECORDS; i++) {
+                    out.write(String.format(Locale.ROOT, "%.2f,%d%n", 1000 * random.nextDouble(), timestampOf(i))
+                            .getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+        } else {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(directory.resolve("log.bin"))))) {
+                for (int i = 0; i < RECORDS; i++) {
+                    out.writeDouble(1000 * random.nextDouble());
+                    out.writeLong(timestampOf(i));
+                }
+            }
+        }
+        repository = new ShardedTransactionRepository(1, 1000, 60000);
+    }
+
+    /**
+     * Starts every ingestion from the beginning of the log, without checkpoint
+     */
+    @Setup(Level.Invocation)
+    public void newIngester() throws IOException {
+        Files.deleteIfExists(checkpointFile);
+        final IngestProperties properties = new IngestProperties();
+        properties.setDirectory(directory.toString());
+        properties.setCheckpointFile(checkpointFile.toString());
+        ingester = new TransactionLogIngester(repository, properties,
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeIngester() {
+        ingester.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path root : new Path[]{directory, checkpointFile.getParent()}) {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long ingest() throws IOException {
+        return ingester.poll();
+    }
+
+    /**
+     * Spreads the records evenly over the last minute, in the order of appending
+     */
+    private static long timestampOf(int record) {
+        return NOW - 60000 + (long) record * 60000 / RECORDS;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(TransactionLogIngestBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.n26.benchmark;
+
+import com.n26.repository.TransactionRepository;
+import com.n26.repository.impl.InMemoryTransactionRepository;
+import com.n26.service.TransactionValidationResult;
+import com.n26.service.impl.TransactionServiceImpl;
+import com.n26.vo.TransactionVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of rejecting stale transactions through {@link TransactionServiceImpl} against the former approach of
+ * throwing a checked exception with a filled-in stack trace, as {@code StaleTransactionException} used to do.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.n26.benchmark.TransactionRejectionBenchmark
+ * -Dexec.classpathScope=test}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionRejectionBenchmark {
+
+    private TransactionRepository repository;
+
+    private Clock clock;
+
+    private TransactionServiceImpl service;
+
+    private TransactionVO staleTransaction;
+
+    @Setup
+    public void setUp() {
+        final Instant now = Instant.now();
+        repository = new InMemoryTransactionRepository();
+        clock = Clock.fixed(now, ZoneOffset.UTC);
+        service = new TransactionServiceImpl(repository, clock, new SimpleMeterRegistry());
+        staleTransaction = new TransactionVO(15.0, now.minusSeconds(120).toEpochMilli());
+    }
+
+    @Benchmark
+    public TransactionValidationResult rejectWithResult() {
+        return service.save(staleTransaction);
+    }
+
+    @Benchmark
+    public Object rejectWithException() {
+        try {
+            saveThrowing(staleTransaction);
+            return null;
+        } catch (LegacyStaleTransactionException e) {
+            return e;
+        }
+    }
+
+    private void saveThrowing(TransactionVO transactionVO) throws LegacyStaleTransactionException {
+        final Instant currentInstant = clock.instant();
+        if (currentInstant.toEpochMilli() - transactionVO.getTimestamp() > repository.getTransactionValidityInMilliSeconds()) {
+            throw new LegacyStaleTransactionException("Transaction is stale");
+        } else if (currentInstant.toEpochMilli() - transactionVO.getTimestamp() < 0) {
+            throw new LegacyStaleTransactionException("Transaction is invalid");
+        }
+    }
+
+    private static class LegacyStaleTransactionException extends Exception {
+        LegacyStaleTransactionException(String message) {
+            super(message);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionRejectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.n26.controller;
+
+import com.n26.util.TransactionDTO;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "transaction.admission.rate-per-second=1",
+        "transaction.admission.burst=2"
+})
+public class AdmissionControlIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void shouldReturn429WhenClientExceedsItsRate() {
+        // having
+        final HttpEntity<TransactionDTO> transaction = transactionOf("runaway-client");
+        restTemplate.postForEntity("/transactions", transaction, Object.class);
+        restTemplate.postForEntity("/transactions", transaction, Object.class);
+
+        // when
+        final ResponseEntity<Object> response = restTemplate.postForEntity("/transactions", transaction, Object.class);
+
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(restTemplate.postForEntity("/transactions", transactionOf("well-behaved-client"), Object.class)
+                .getStatusCode(), is(HttpStatus.NO_CONTENT));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldExportCountsPerClient() {
+        // having
+        final HttpEntity<TransactionDTO> transaction = transactionOf("counted-client");
+        for (int i = 0; i < 3; i++) {
+            restTemplate.postForEntity("/transactions", transaction, Object.class);
+        }
+
+        // when
+        final Map<String, Map<String, Integer>> counts = restTemplate.getForObject("/actuator/admission", Map.class);
+
+        // then
+        assertThat(counts.get("counted-client").get("accepted"), is(2));
+        assertThat(counts.get("counted-client").get("rejected"), is(1));
+    }
+
+    private static HttpEntity<TransactionDTO> transactionOf(String clientId) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Client-Id", clientId);
+        return new HttpEntity<>(new TransactionDTO(15.0, 0L), headers);
+    }
+}
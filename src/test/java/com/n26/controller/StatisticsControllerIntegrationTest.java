@@ -1,6 +1,11 @@
 package com.n26.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.n26.controller.helper.BucketStatisticsPacker;
 import com.n26.util.StatisticsDTO;
+import com.n26.util.TransactionDTO;
 import com.n26.vo.TransactionVO;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,14 +15,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.Collections;
 
+import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -96,5 +109,130 @@ public class StatisticsControllerIntegrationTest {
         assertThat(stats.avg, closeTo(expectedAvg, 0.001));
         assertThat(stats.max, closeTo(expectedMax, 0.001));
         assertThat(stats.min, closeTo(expectedMin, 0.001));
+        assertThat(stats.stddev, closeTo(Math.sqrt(stats.variance), 0.001));
+    }
+
+    @Test
+    @DirtiesContext
+    public void shouldGetLargestTransactionsForLast60Seconds() {
+        // having
+        final Instant now = Instant.now();
+        when(IntegrationTestConfiguration.clock.instant()).thenReturn(now);
+        for (int i = 1; i <= 20; i++) {
+            restTemplate.postForEntity("/transactions", new TransactionVO((double) i, now.toEpochMilli()), Object.class);
+        }
+
+        // when
+        final ResponseEntity<TransactionDTO[]> response = restTemplate.getForEntity("/statistics/largest",
+                TransactionDTO[].class);
+
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getBody(), arrayWithSize(10));
+        assertThat(response.getBody()[0].amount, is(20.0));
+        assertThat(response.getBody()[0].timestamp, is(now.toEpochMilli()));
+        assertThat(response.getBody()[9].amount, is(11.0));
+    }
+
+    @Test
+    @DirtiesContext
+    public void shouldReturn404WhenAllTransactionsDeleted() {
+        // having
+        final Instant now = Instant.now();
+        when(IntegrationTestConfiguration.clock.instant()).thenReturn(now);
+        restTemplate.postForEntity("/transactions", new TransactionVO(10.0, now.toEpochMilli()), Object.class);
+
+        // when
+        final ResponseEntity<Void> deleteResponse = restTemplate.exchange("/transactions", HttpMethod.DELETE, null,
+                Void.class);
+        final ResponseEntity<StatisticsDTO> response = restTemplate.getForEntity("/statistics", StatisticsDTO.class);
+
+        // then
+        assertThat(deleteResponse.getStatusCode(), is(HttpStatus.NO_CONTENT));
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    @DirtiesContext
+    public void shouldGetStatisticsOfPastWindowWhenAtGiven() {
+        // having
+        final Instant now = Instant.now();
+        when(IntegrationTestConfiguration.clock.instant()).thenReturn(now);
+        restTemplate.postForEntity("/transactions", new TransactionVO(10.0, now.toEpochMilli()), Object.class);
+        final Instant after5Minutes = now.plusSeconds(300);
+        when(IntegrationTestConfiguration.clock.instant()).thenReturn(after5Minutes);
+        restTemplate.postForEntity("/transactions", new TransactionVO(30.0, after5Minutes.toEpochMilli()), Object.class);
+
+        // when
+        final ResponseEntity<StatisticsDTO> pastResponse = restTemplate.getForEntity(
+                "/statistics?at=" + now.plusSeconds(30).toEpochMilli(), StatisticsDTO.class);
+        final ResponseEntity<StatisticsDTO> currentResponse = restTemplate.getForEntity("/statistics",
+                StatisticsDTO.class);
+        final ResponseEntity<StatisticsDTO> futureResponse = restTemplate.getForEntity(
+                "/statistics?at=" + after5Minutes.plusSeconds(1).toEpochMilli(), StatisticsDTO.class);
+
+        // then
+        assertThat(pastResponse.getStatusCode(), is(HttpStatus.OK));
+        assertThat(pastResponse.getBody().count, is(1L));
+        assertThat(pastResponse.getBody().sum, closeTo(10.0, 0.001));
+        assertThat(currentResponse.getBody().count, is(1L));
+        assertThat(currentResponse.getBody().sum, closeTo(30.0, 0.001));
+        assertThat(futureResponse.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    @DirtiesContext
+    public void shouldGetStatisticsInBinaryEncodingWhenAccepted() throws IOException {
+        // having
+        final Instant now = Instant.now();
+        when(IntegrationTestConfiguration.clock.instant()).thenReturn(now);
+        restTemplate.postForEntity("/transactions", new TransactionVO(10.0, now.toEpochMilli()), Object.class);
+
+        // when
+        final ResponseEntity<byte[]> smileResponse = getStatisticsAccepting("application/x-jackson-smile");
+        final ResponseEntity<byte[]> cborResponse = getStatisticsAccepting("application/cbor");
+
+        // then
+        assertThat(smileResponse.getHeaders().getContentType().getSubtype(), is("x-jackson-smile"));
+        assertThat(new ObjectMapper(new SmileFactory()).readValue(smileResponse.getBody(), StatisticsDTO.class).sum,
+                closeTo(10.0, 0.001));
+        assertThat(cborResponse.getHeaders().getContentType().getSubtype(), is("cbor"));
+        assertThat(new ObjectMapper(new CBORFactory()).readValue(cborResponse.getBody(), StatisticsDTO.class).count,
+                is(1L));
+    }
+
+    @Test
+    @DirtiesContext
+    public void shouldGetPackedBucketStatisticsOfWindow() {
+        // having
+        final Instant now = Instant.now();
+        when(IntegrationTestConfiguration.clock.instant()).thenReturn(now);
+        restTemplate.postForEntity("/transactions", new TransactionVO(10.0, now.toEpochMilli()), Object.class);
+        restTemplate.postForEntity("/transactions", new TransactionVO(30.0, now.toEpochMilli()), Object.class);
+        restTemplate.postForEntity("/transactions", new TransactionVO(5.0, now.minusSeconds(10).toEpochMilli()),
+                Object.class);
+
+        // when
+        final ResponseEntity<byte[]> response = restTemplate.getForEntity("/statistics/buckets", byte[].class);
+
+        // then
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getBody().length, is(2 * BucketStatisticsPacker.RECORD_SIZE));
+        final ByteBuffer buckets = ByteBuffer.wrap(response.getBody());
+        assertThat(buckets.getLong(), is(now.minusSeconds(10).toEpochMilli() / 1000 * 1000));
+        assertThat(buckets.getInt(), is(1000));
+        assertThat(buckets.getLong(), is(1L));
+        buckets.position(BucketStatisticsPacker.RECORD_SIZE + Long.BYTES + Integer.BYTES);
+        assertThat(buckets.getLong(), is(2L));
+        assertThat(buckets.getDouble(), closeTo(40.0, 0.001));
+        assertThat(buckets.getDouble(), closeTo(10.0, 0.001));
+        assertThat(buckets.getDouble(), closeTo(30.0, 0.001));
+        assertThat(buckets.getDouble(), closeTo(200.0, 0.001));
+    }
+
+    private ResponseEntity<byte[]> getStatisticsAccepting(String mediaType) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType(mediaType)));
+        return restTemplate.exchange("/statistics", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
     }
 }
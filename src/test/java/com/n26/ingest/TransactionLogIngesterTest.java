@@ -0,0 +1,185 @@
+package com.n26.ingest;
+
+import com.n26.repository.NoRecordedTransactionException;
+import com.n26.repository.impl.InMemoryTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TransactionLogIngesterTest {
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private InMemoryTransactionRepository repository;
+
+    private IngestProperties properties;
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+
+    @Before
+    public void setUp() {
+        repository = new InMemoryTransactionRepository();
+        properties = new IngestProperties();
+        properties.setDirectory(folder.getRoot().getPath());
+    }
+
+    @Test
+    public void shouldIngestValidRecordsOfCsvLog() throws IOException, NoRecordedTransactionException {
+        // having
+        append("transactions.csv", "amount,timestamp\n12.5," + (NOW - 1000) + "\r\n-2.25, " + (NOW - 2000)
+                + "\n1e2," + (NOW - 3000) + "\n7.0," + (NOW - 61000) + "\n8.0," + (NOW + 1000) + "\n");
+        final TransactionLogIngester ingester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+
+        // when
+        final long records = ingester.poll();
+
+        // then
+        assertThat(records, is(6L));
+        assertThat(repository.getCount(clock.instant()), is(3L));
+        assertThat(repository.getSum(clock.instant()), closeTo(110.25, 0.0001));
+        assertThat(repository.getMinimum(clock.instant()), closeTo(-2.25, 0.0001));
+    }
+
+    @Test
+    public void shouldIngestValidRecordsOfBinaryLog() throws IOException, NoRecordedTransactionException {
+        // having
+        final ByteBuffer records = ByteBuffer.allocate(2 * TransactionLogFormat.BINARY_RECORD_SIZE + 3);
+        records.putDouble(15.0).putLong(NOW - 1000).putDouble(25.0).putLong(NOW - 2000).put(new byte[3]);
+        append("transactions.bin", records.array());
+        final TransactionLogIngester ingester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+
+        // when
+        final long ingestedRecords = ingester.poll();
+
+        // then
+        assertThat(ingestedRecords, is(2L));
+        assertThat(repository.getSum(clock.instant()), closeTo(40.0, 0.0001));
+        assertThat(repository.getMaximum(clock.instant()), closeTo(25.0, 0.0001));
+    }
+
+    @Test
+    public void shouldIngestOnlyCompleteRecordsWhenFileGrows() throws IOException {
+        // having
+        append("transactions.csv", "1.0," + (NOW - 1000) + "\n2.0,");
+        final TransactionLogIngester ingester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+        ingester.poll();
+
+        // when
+        append("transactions.csv", (NOW - 10) + "\n3.0," + (NOW - 1000) + "\n");
+        final long records = ingester.poll();
+
+        // then
+        assertThat(records, is(2L));
+        assertThat(repository.getCount(clock.instant()), is(3L));
+        assertThat(repository.getSum(clock.instant()), closeTo(6.0, 0.0001));
+    }
+
+    @Test
+    public void shouldResumeFromCheckpointWhenRestarted() throws IOException {
+        // having
+        append("transactions.csv", "1.0," + (NOW - 1000) + "\n");
+        new TransactionLogIngester(repository, properties, clock, new SimpleMeterRegistry()).poll();
+        append("transactions.csv", "2.0," + (NOW - 1000) + "\n");
+        final TransactionLogIngester restartedIngester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+
+        // when
+        restartedIngester.loadCheckpoint();
+        final long records = restartedIngester.poll();
+
+        // then
+        assertThat(records, is(1L));
+        assertThat(repository.getCount(clock.instant()), is(2L));
+        assertThat(repository.getSum(clock.instant()), closeTo(3.0, 0.0001));
+    }
+
+    @Test
+    public void shouldSkipLineLongerThanMappedRegion() throws IOException {
+        // having
+        properties.setMaxMappedBytes(64);
+        final StringBuilder longLine = new StringBuilder("1.0");
+        while (longLine.length() < 200) {
+            longLine.append('0');
+        }
+        append("transactions.csv", longLine + "," + (NOW - 1000) + "\n2.0," + (NOW - 1000) + "\n");
+        final TransactionLogIngester ingester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+
+        // when
+        final long records = ingester.poll();
+
+        // then
+        assertThat(records, is(2L));
+        assertThat(repository.getCount(clock.instant()), is(1L));
+        assertThat(repository.getSum(clock.instant()), closeTo(2.0, 0.0001));
+    }
+
+    @Test
+    public void shouldIngestFileFromItsStartWhenReplaced() throws IOException {
+        // having
+        append("transactions.csv", "1.0," + (NOW - 1000) + "\n");
+        final TransactionLogIngester ingester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+        ingester.poll();
+
+        // when
+        append("replacement.tmp", "2.0," + (NOW - 1000) + "\n3.0," + (NOW - 1000) + "\n");
+        Files.move(folder.getRoot().toPath().resolve("replacement.tmp"),
+                folder.getRoot().toPath().resolve("transactions.csv"), StandardCopyOption.REPLACE_EXISTING);
+        final long records = ingester.poll();
+
+        // then
+        assertThat(records, is(2L));
+        assertThat(repository.getCount(clock.instant()), is(3L));
+        assertThat(repository.getSum(clock.instant()), closeTo(6.0, 0.0001));
+    }
+
+    @Test
+    public void shouldDropCheckpointedOffsetOfDeletedFile() throws IOException {
+        // having
+        append("first.csv", "1.0," + (NOW - 1000) + "\n");
+        append("second.csv", "2.0," + (NOW - 1000) + "\n");
+        final TransactionLogIngester ingester = new TransactionLogIngester(repository, properties, clock,
+                new SimpleMeterRegistry());
+        ingester.poll();
+
+        // when
+        Files.delete(folder.getRoot().toPath().resolve("first.csv"));
+        ingester.poll();
+
+        // then
+        assertThat(Files.readAllLines(folder.getRoot().toPath().resolve(".ingest-checkpoint")).size(), is(1));
+    }
+
+    private void append(String fileName, String content) throws IOException {
+        append(fileName, content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void append(String fileName, byte[] content) throws IOException {
+        final Path file = folder.getRoot().toPath().resolve(fileName);
+        Files.write(file, content, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
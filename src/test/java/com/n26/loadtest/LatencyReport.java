@@ -0,0 +1,63 @@
+package com.n26.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one kind of request, recorded from several threads at once
+ */
+class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY_IN_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final String operation;
+
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_IN_MICROS, 3);
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    LatencyReport(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Records a completed request; a status of -1 stands for a request which failed without response
+     */
+    void record(long latencyInNanos, int status) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyInNanos),
+                HIGHEST_TRACKABLE_LATENCY_IN_MICROS));
+        if (status == 429) {
+            rejected.increment();
+        } else if (status < 0 || status >= 500) {
+            errors.increment();
+        }
+    }
+
+    void add(LatencyReport other) {
+        latencies.add(other.latencies);
+        rejected.add(other.rejected.sum());
+        errors.add(other.errors.sum());
+    }
+
+    static String header() {
+        return String.format(Locale.ROOT, "%-12s %10s %8s %8s %12s %10s %10s %10s %10s %10s", "operation",
+                "count", "errors", "rejected", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+    }
+
+    String format(double measuredSeconds) {
+        return String.format(Locale.ROOT, "%-12s %10d %8d %8d %12.1f %10.3f %10.3f %10.3f %10.3f %10.3f",
+                operation, latencies.getTotalCount(), errors.sum(), rejected.sum(),
+                latencies.getTotalCount() / measuredSeconds, percentileInMs(50.0), percentileInMs(90.0),
+                percentileInMs(99.0), percentileInMs(99.9), latencies.getMaxValue() / 1000.0);
+    }
+
+    private double percentileInMs(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
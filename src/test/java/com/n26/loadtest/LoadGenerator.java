@@ -0,0 +1,236 @@
+package com.n26.loadtest;
+
+import com.n26.App;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of the HTTP service: requests are scheduled at a fixed rate regardless of how fast the service
+ * answers, a share of them being {@code GET /statistics} and the others {@code POST /transactions}. Every latency is
+ * measured from the time the request was scheduled for rather than from the time it was sent, so that requests held
+ * back by a stalled service are not left out of the percentiles (coordinated omission).
+ * <p>
+ * Settings are system properties:
+ * <ul>
+ * <li>{@code loadtest.url}: base URL of the service, started in-process on a random port when not set; the
+ * arguments are then passed to the application, e.g. {@code --transaction.admission.enabled=false}</li>
+ * <li>{@code loadtest.rate}: requests per second, 500 by default</li>
+ * <li>{@code loadtest.duration}: measured seconds, 30 by default</li>
+ * <li>{@code loadtest.warmup}: seconds of load before the measurement, 5 by default</li>
+ * <li>{@code loadtest.statisticsRatio}: share of {@code GET /statistics} requests, 0.1 by default</li>
+ * <li>{@code loadtest.connections}: number of requests in flight at most, 32 by default</li>
+ * <li>{@code loadtest.report}: file the report is also written to, so that reports of two builds can be diffed</li>
+ * </ul>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.n26.loadtest.LoadGenerator
+ * -Dexec.classpathScope=test -Dloadtest.rate=2000}
+ */
+public class LoadGenerator {
+
+    private static final long SEED = 42;
+
+    private final URL transactionsUrl;
+
+    private final URL statisticsUrl;
+
+    private final int rate;
+
+    private final int durationInSeconds;
+
+    private final int warmupInSeconds;
+
+    private final double statisticsRatio;
+
+    private final int connections;
+
+    private final LatencyReport transactions = new LatencyReport("transactions");
+
+    private final LatencyReport statistics = new LatencyReport("statistics");
+
+    private final AtomicLong lastCompletion = new AtomicLong();
+
+    LoadGenerator(String baseUrl, int rate, int durationInSeconds, int warmupInSeconds, double statisticsRatio,
+                  int connections) throws IOException {
+        checkSettings(rate, durationInSeconds, warmupInSeconds, statisticsRatio, connections);
+        this.transactionsUrl = new URL(baseUrl + "/transactions");
+        this.statisticsUrl = new URL(baseUrl + "/statistics");
+        this.rate = rate;
+        this.durationInSeconds = durationInSeconds;
+        this.warmupInSeconds = warmupInSeconds;
+        this.statisticsRatio = statisticsRatio;
+        this.connections = connections;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int rate = Integer.getInteger("loadtest.rate", 500);
+        final int durationInSeconds = Integer.getInteger("loadtest.duration", 30);
+        final int warmupInSeconds = Integer.getInteger("loadtest.warmup", 5);
+        final double statisticsRatio = Double.parseDouble(System.getProperty("loadtest.statisticsRatio", "0.1"));
+        final int connections = Integer.getInteger("loadtest.connections", 32);
+        checkSettings(rate, durationInSeconds, warmupInSeconds, statisticsRatio, connections);
+        System.setProperty("http.maxConnections", String.valueOf(connections));
+        String url = System.getProperty("loadtest.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null) {
+            final String[] applicationArgs = Arrays.copyOf(args, args.length + 1);
+            applicationArgs[args.length] = "--server.port=0";
+            context = SpringApplication.run(App.class, applicationArgs);
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            final LoadGenerator generator = new LoadGenerator(url, rate, durationInSeconds, warmupInSeconds,
+                    statisticsRatio, connections);
+            final String report = generator.run();
+            System.out.print(report);
+            final String reportFile = System.getProperty("loadtest.report");
+            if (reportFile != null) {
+                Files.write(Paths.get(reportFile), report.getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Fails unless the requests can be scheduled at least a nano second apart, for a positive duration and over at
+     * least one connection
+     */
+    private static void checkSettings(int rate, int durationInSeconds, int warmupInSeconds, double statisticsRatio,
+                                      int connections) {
+        if (rate < 1 || rate > TimeUnit.SECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("loadtest.rate must be between 1 and " + TimeUnit.SECONDS.toNanos(1)
+                    + " but was " + rate);
+        }
+        if (durationInSeconds < 1) {
+            throw new IllegalArgumentException("loadtest.duration must be positive but was " + durationInSeconds);
+        }
+        if (warmupInSeconds < 0) {
+            throw new IllegalArgumentException("loadtest.warmup must not be negative but was " + warmupInSeconds);
+        }
+        if (statisticsRatio < 0 || statisticsRatio > 1) {
+            throw new IllegalArgumentException("loadtest.statisticsRatio must be between 0 and 1 but was "
+                    + statisticsRatio);
+        }
+        if (connections < 1) {
+            throw new IllegalArgumentException("loadtest.connections must be positive but was " + connections);
+        }
+    }
+
+    /**
+     * Runs the warmup and the measurement, and returns the report of the measurement
+     */
+    String run() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(connections);
+        final Random random = new Random(SEED);
+        final long intervalInNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long measurementStart = start + TimeUnit.SECONDS.toNanos(warmupInSeconds);
+        final long end = measurementStart + TimeUnit.SECONDS.toNanos(durationInSeconds);
+        for (long request = 0; ; request++) {
+            final long intendedStart = start + request * intervalInNanos;
+            if (intendedStart - end >= 0) {
+                break;
+            }
+            final boolean getStatistics = random.nextDouble() < statisticsRatio;
+            final boolean measured = intendedStart - measurementStart >= 0;
+            waitUntil(intendedStart);
+            executor.execute(() -> send(getStatistics, intendedStart, measured));
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+
+        final double measuredSeconds = Math.max(end - measurementStart, lastCompletion.get() - measurementStart)
+                / (double) TimeUnit.SECONDS.toNanos(1);
+        final LatencyReport all = new LatencyReport("all");
+        all.add(transactions);
+        all.add(statistics);
+        final String lineSeparator = System.lineSeparator();
+        return String.format(Locale.ROOT, "# rate=%d/s duration=%ds warmup=%ds statistics-ratio=%.2f connections=%d%n",
+                rate, durationInSeconds, warmupInSeconds, statisticsRatio, connections)
+                + LatencyReport.header() + lineSeparator
+                + transactions.format(measuredSeconds) + lineSeparator
+                + statistics.format(measuredSeconds) + lineSeparator
+                + all.format(measuredSeconds) + lineSeparator;
+    }
+
+    private void send(boolean getStatistics, long intendedStart, boolean measured) {
+        int status;
+        try {
+            status = getStatistics ? get(statisticsUrl) : post(transactionsUrl, transactionBody());
+        } catch (IOException e) {
+            status = -1;
+        }
+        final long completion = System.nanoTime();
+        if (measured) {
+            (getStatistics ? statistics : transactions).record(completion - intendedStart, status);
+            lastCompletion.accumulateAndGet(completion, Math::max);
+        }
+    }
+
+    private static byte[] transactionBody() {
+        final double amount = 1000 * ThreadLocalRandom.current().nextDouble();
+        return String.format(Locale.ROOT, "{\"amount\":%.4f,\"timestamp\":%d}", amount, System.currentTimeMillis())
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int get(URL url) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        return complete(connection);
+    }
+
+    private static int post(URL url, byte[] body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("X-Client-Id", "load-generator");
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return complete(connection);
+    }
+
+    /**
+     * Reads the whole response, so that the connection can be reused for the next request
+     */
+    private static int complete(HttpURLConnection connection) throws IOException {
+        final int status = connection.getResponseCode();
+        final InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (body != null) {
+            try (InputStream in = body) {
+                final byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // drain
+                }
+            }
+        }
+        return status;
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
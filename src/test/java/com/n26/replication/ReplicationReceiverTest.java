@@ -0,0 +1,135 @@
+package com.n26.replication;
+
+import com.n26.model.Transaction;
+import com.n26.repository.RepositoryProperties;
+import com.n26.repository.impl.ReplicatingTransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicationReceiverTest {
+
+    private ReplicatingTransactionRepository primary;
+
+    private ReplicatingTransactionRepository replica;
+
+    private ReplicationReceiver receiver;
+
+    private ReplicationPublisher publisher;
+
+    private MeterRegistry primaryMeterRegistry;
+
+    private MeterRegistry replicaMeterRegistry;
+
+    @Before
+    public void setUp() throws IOException {
+        final RepositoryProperties repositoryProperties = new RepositoryProperties();
+        primary = new ReplicatingTransactionRepository(repositoryProperties, false);
+        replica = new ReplicatingTransactionRepository(repositoryProperties, true);
+        primaryMeterRegistry = new SimpleMeterRegistry();
+        replicaMeterRegistry = new SimpleMeterRegistry();
+
+        final ReplicationProperties replicaProperties = new ReplicationProperties();
+        replicaProperties.setPort(0);
+        receiver = new ReplicationReceiver(replica, replicaProperties, Clock.systemUTC(), replicaMeterRegistry);
+        receiver.start();
+
+        publisher = new ReplicationPublisher(primary, primaryPropertiesOf(receiver), primaryMeterRegistry);
+        publisher.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        publisher.close();
+        receiver.close();
+    }
+
+    @Test
+    public void shouldServeStatisticsOfPrimaryOnReplica() throws InterruptedException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            primary.save(new Transaction(1.0, currentTimeMillis - (i % 30) * 1000));
+        }
+
+        // then
+        awaitTrue(() -> replica.getCount(instant) == 100L);
+        assertThat(replica.getSum(instant), is(100.0));
+        assertThat(primaryMeterRegistry.get("replication.bytes").tag("direction", "sent").counter().count(),
+                greaterThan(0.0));
+        assertThat(replicaMeterRegistry.get("replication.bytes").tag("direction", "received").counter().count(),
+                greaterThan(0.0));
+    }
+
+    @Test
+    public void shouldResyncReplicaWhenPrimaryReconnects() throws InterruptedException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        primary.save(new Transaction(1.0, currentTimeMillis));
+        awaitTrue(() -> replica.getCount(instant) == 1L);
+
+        // when
+        publisher.close();
+        primary.save(new Transaction(2.0, currentTimeMillis - 1000));
+        publisher = new ReplicationPublisher(primary, primaryPropertiesOf(receiver), new SimpleMeterRegistry());
+        publisher.start();
+
+        // then
+        awaitTrue(() -> replica.getCount(instant) == 2L);
+        assertThat(replica.getSum(instant), is(3.0));
+    }
+
+    @Test
+    public void shouldDropConnectionWhenFrameSizeOutOfRange() throws IOException, InterruptedException {
+        // having
+        publisher.close();
+
+        // when
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), receiver.getLocalPort())) {
+            socket.setSoTimeout(5000);
+            new DataOutputStream(socket.getOutputStream()).writeInt(Integer.MAX_VALUE);
+
+            // then
+            assertThat(socket.getInputStream().read(), is(-1));
+        }
+        final long currentTimeMillis = System.currentTimeMillis();
+        primary.save(new Transaction(1.0, currentTimeMillis));
+        publisher = new ReplicationPublisher(primary, primaryPropertiesOf(receiver), new SimpleMeterRegistry());
+        publisher.start();
+        awaitTrue(() -> replica.getCount(Instant.ofEpochMilli(currentTimeMillis)) == 1L);
+    }
+
+    private static ReplicationProperties primaryPropertiesOf(ReplicationReceiver receiver) {
+        final ReplicationProperties primaryProperties = new ReplicationProperties();
+        primaryProperties.setPort(receiver.getLocalPort());
+        primaryProperties.setFlushIntervalInMs(10);
+        return primaryProperties;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,21 @@
+package com.n26.repository;
+
+import org.junit.Test;
+
+public class RepositoryPropertiesTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenTopKNegative() {
+        new RepositoryProperties().setTopK(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenDistinctCountPrecisionTooSmall() {
+        new RepositoryProperties().setDistinctCountPrecision(RepositoryProperties.MIN_DISTINCT_COUNT_PRECISION - 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenDistinctCountPrecisionTooLarge() {
+        new RepositoryProperties().setDistinctCountPrecision(RepositoryProperties.MAX_DISTINCT_COUNT_PRECISION + 1);
+    }
+}
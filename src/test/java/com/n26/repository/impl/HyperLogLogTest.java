@@ -0,0 +1,74 @@
+package com.n26.repository.impl;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void shouldEstimateZeroWhenNothingOffered() {
+        assertThat(new HyperLogLog(12).estimate(), is(0L));
+    }
+
+    @Test
+    public void shouldCountSmallCardinalitiesExactlyEnoughWhenDuplicates() {
+        // having
+        final HyperLogLog sketch = new HyperLogLog(12);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer(HyperLogLog.hash("account-" + (i % 10)));
+        }
+
+        // then
+        assertThat(sketch.estimate(), is(10L));
+    }
+
+    @Test
+    public void shouldEstimateLargeCardinalityWithinFewPercent() {
+        // having
+        final HyperLogLog sketch = new HyperLogLog(12);
+        final int distinctAccounts = 200000;
+
+        // when
+        for (int i = 0; i < distinctAccounts; i++) {
+            sketch.offer(HyperLogLog.hash("account-" + i));
+        }
+
+        // then
+        assertThat((double) sketch.estimate(), closeTo(distinctAccounts, distinctAccounts * 0.05));
+    }
+
+    @Test
+    public void shouldEstimateSameAsSingleSketchWhenMerged() {
+        // having
+        final HyperLogLog single = new HyperLogLog(10);
+        final HyperLogLog first = new HyperLogLog(10);
+        final HyperLogLog second = new HyperLogLog(10);
+        for (int i = 0; i < 50000; i++) {
+            final long hash = HyperLogLog.hash("account-" + i);
+            single.offer(hash);
+            (i % 3 == 0 ? first : second).offer(hash);
+            first.offer(HyperLogLog.hash("account-" + (i % 100)));
+        }
+
+        // when
+        first.merge(second);
+
+        // then
+        assertThat(first.estimate(), is(single.estimate()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenPrecisionOutOfRange() {
+        new HyperLogLog(HyperLogLog.MAX_PRECISION + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenMergingDifferentPrecisions() {
+        new HyperLogLog(10).merge(new HyperLogLog(11));
+    }
+}
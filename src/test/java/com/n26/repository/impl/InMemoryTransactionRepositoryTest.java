@@ -1,21 +1,31 @@
 package com.n26.repository.impl;
 
+import com.n26.model.BucketStatistics;
 import com.n26.model.Transaction;
+import com.n26.model.WindowStatistics;
 import com.n26.repository.NoRecordedTransactionException;
+import com.n26.repository.RepositoryProperties;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertThat;
 
 public class InMemoryTransactionRepositoryTest {
@@ -129,6 +139,373 @@ public class InMemoryTransactionRepositoryTest {
         assertThat(removedTransactions, is(5L));
     }
 
+    @Test
+    public void shouldGetZeroVarianceWhenLargeEqualAmountsAcrossBuckets() throws NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            repository.save(new Transaction(1e12 + 0.1, currentTimeMillis - (i % 50) * 1000));
+        }
+
+        // then
+        assertThat(repository.getVariance(instant), is(0.0));
+        assertThat(repository.getStandardDeviation(instant), is(0.0));
+    }
+
+    @Test
+    public void shouldGetStableVarianceWhenSmallSpreadAroundLargeOffset() throws NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        final double[] deviations = {4, 7, 13, 16};
+
+        // when
+        for (int i = 0; i < deviations.length; i++) {
+            repository.save(new Transaction(1e9 + deviations[i], currentTimeMillis - i * 1000));
+        }
+
+        // then
+        assertThat(repository.getVariance(instant), closeTo(22.5, 1e-6));
+        assertThat(repository.getStandardDeviation(instant), closeTo(Math.sqrt(22.5), 1e-6));
+    }
+
+    @Test
+    public void shouldGetVarianceWhenWideDynamicRangeAcrossBuckets() throws NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        final double[] amounts = new double[600];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = Math.pow(10, (i % 19) - 6) * (1 + i % 7);
+        }
+
+        // when
+        for (int i = 0; i < amounts.length; i++) {
+            repository.save(new Transaction(amounts[i], currentTimeMillis - (i % 60) * 1000));
+        }
+
+        // then
+        final double expectedVariance = twoPassVariance(amounts);
+        assertThat(repository.getVariance(instant), closeTo(expectedVariance, expectedVariance * 1e-12));
+    }
+
+    @Test(expected = NoRecordedTransactionException.class)
+    public void shouldThrowWhileGettingVarianceWhenNoTransactions() throws NoRecordedTransactionException {
+        final Instant current = Instant.now();
+
+        repository.getVariance(current);
+    }
+
+    @Test
+    public void shouldGetConsistentStatisticsFromSingleAggregation() throws NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        repository.save(new Transaction(5.0, currentTimeMillis - 1000, "first"));
+        repository.save(new Transaction(10.0, currentTimeMillis - 2000, "second"));
+        repository.save(new Transaction(30.0, currentTimeMillis - 3000, "first"));
+
+        // when
+        final WindowStatistics statistics = repository.getStatistics(instant);
+
+        // then
+        assertThat(statistics.getCount(), is(3L));
+        assertThat(statistics.getSum(), is(45.0));
+        assertThat(statistics.getAverage(), is(15.0));
+        assertThat(statistics.getMin(), is(5.0));
+        assertThat(statistics.getMax(), is(30.0));
+        assertThat(statistics.getVariance(), closeTo(twoPassVariance(new double[]{5.0, 10.0, 30.0}), 0.0001));
+        assertThat(statistics.getStandardDeviation(), is(Math.sqrt(statistics.getVariance())));
+        assertThat(statistics.getDistinctAccountCount(), is(2L));
+    }
+
+    @Test(expected = NoRecordedTransactionException.class)
+    public void shouldThrowWhileGettingStatisticsWhenNoTransactions() throws NoRecordedTransactionException {
+        repository.getStatistics(Instant.now());
+    }
+
+    @Test
+    public void shouldGetLargestTransactionsAcrossBucketsInDescendingOrder() {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        final RepositoryProperties properties = new RepositoryProperties();
+        properties.setTopK(3);
+        repository = new InMemoryTransactionRepository(properties);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            repository.save(new Transaction((double) ((i * 37) % 100), currentTimeMillis - (i % 30) * 1000));
+        }
+        repository.save(new Transaction(500.0, currentTimeMillis - 61000));
+
+        // then
+        final List<Transaction> largestTransactions = repository.getLargestTransactions(instant);
+        assertThat(largestTransactions.stream().map(Transaction::getAmount).collect(Collectors.toList()),
+                contains(99.0, 98.0, 97.0));
+        assertThat(largestTransactions.get(0).getTimestamp(), is(currentTimeMillis - 27 * 1000));
+    }
+
+    @Test
+    public void shouldGetNoLargestTransactionsWhenNoTransactions() {
+        final Instant current = Instant.now();
+
+        assertThat(repository.getLargestTransactions(current), is(empty()));
+    }
+
+    @Test
+    public void shouldEstimateDistinctAccountsAcrossBuckets() {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+
+        // when
+        for (int i = 0; i < 30000; i++) {
+            repository.save(new Transaction(10.0, currentTimeMillis - (i % 60) * 1000, "account-" + (i % 5000)));
+        }
+        repository.save(new Transaction(10.0, currentTimeMillis));
+        repository.save(new Transaction(10.0, currentTimeMillis - 61000, "stale-account"));
+
+        // then
+        assertThat(repository.getDistinctAccountCount(instant).doubleValue(), closeTo(5000, 5000 * 0.05));
+    }
+
+    @Test
+    public void shouldGetZeroDistinctAccountsWhenNoAccountGiven() {
+        final long currentTimeMillis = System.currentTimeMillis();
+        repository.save(new Transaction(10.0, currentTimeMillis));
+
+        assertThat(repository.getDistinctAccountCount(Instant.ofEpochMilli(currentTimeMillis)), is(0L));
+    }
+
+    @Test
+    public void shouldGetOnlyTransactionsSavedAfterDeletingAll() throws NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Transaction(100.0, currentTimeMillis - i * 1000, "old-account"));
+        }
+
+        // when
+        repository.deleteAll();
+        repository.save(new Transaction(5.0, currentTimeMillis, "new-account"));
+        repository.save(new Transaction(7.0, currentTimeMillis - 20000));
+
+        // then
+        assertThat(repository.getCount(instant), is(2L));
+        assertThat(repository.getSum(instant), closeTo(12.0, 0.001));
+        assertThat(repository.getMaximum(instant), closeTo(7.0, 0.001));
+        assertThat(repository.getDistinctAccountCount(instant), is(1L));
+    }
+
+    @Test
+    public void shouldGetNoTransactionsAfterDeletingAll() {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        repository.save(new Transaction(100.0, currentTimeMillis));
+
+        // when
+        repository.deleteAll();
+
+        // then
+        assertThat(repository.getCount(Instant.ofEpochMilli(currentTimeMillis)), is(0L));
+        assertThat(repository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis).plusMillis(61000)),
+                is(0L));
+    }
+
+    @Test
+    public void shouldGetStatisticsOfPastWindowWhenWithinRetention() {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final RepositoryProperties properties = new RepositoryProperties();
+        properties.setRetentionInMs(300000);
+        repository = new InMemoryTransactionRepository(properties);
+        repository.save(new Transaction(15.0, currentTimeMillis));
+        repository.save(new Transaction(25.0, currentTimeMillis + 200000));
+
+        // when
+        final long removedTransactions = repository.removeStaleTransactions(
+                Instant.ofEpochMilli(currentTimeMillis).plusMillis(240000));
+
+        // then
+        assertThat(removedTransactions, is(0L));
+        assertThat(repository.getCount(Instant.ofEpochMilli(currentTimeMillis).plusMillis(30000)), is(1L));
+        assertThat(repository.getCount(Instant.ofEpochMilli(currentTimeMillis).plusMillis(240000)), is(1L));
+        assertThat(repository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis).plusMillis(301000)),
+                is(1L));
+    }
+
+    @Test
+    public void shouldGetBucketStatisticsOfWindowInTimeOrder() {
+        // having
+        final long now = 1_500_000_000_000L;
+        repository.save(new Transaction(5.0, now - 500));
+        repository.save(new Transaction(10.0, now - 2500));
+        repository.save(new Transaction(30.0, now - 2100));
+        repository.save(new Transaction(7.0, now - 61000));
+
+        // when
+        final List<BucketStatistics> buckets = repository.getBucketStatistics(Instant.ofEpochMilli(now));
+
+        // then
+        assertThat(buckets.size(), is(2));
+        assertThat(buckets.get(0).getStartInMs(), is(now - 3000));
+        assertThat(buckets.get(0).getWidthInMs(), is(1000));
+        assertThat(buckets.get(0).getCount(), is(2L));
+        assertThat(buckets.get(0).getSum(), closeTo(40.0, 0.0001));
+        assertThat(buckets.get(0).getMin(), closeTo(10.0, 0.0001));
+        assertThat(buckets.get(0).getMax(), closeTo(30.0, 0.0001));
+        assertThat(buckets.get(0).getSquaredDeviations(), closeTo(200.0, 0.0001));
+        assertThat(buckets.get(1).getStartInMs(), is(now - 1000));
+        assertThat(buckets.get(1).getCount(), is(1L));
+        assertThat(buckets.get(0).merge(buckets.get(1)).getSquaredDeviations(),
+                closeTo(3 * twoPassVariance(new double[]{5.0, 10.0, 30.0}), 0.0001));
+    }
+
+    @Test
+    public void shouldKeepBucketsWithinBudgetWhenMergingAgedBucketsIntoCoarseOnes() throws NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = 1_000_000;
+        repository = new InMemoryTransactionRepository(coarseBucketProperties());
+        for (int i = 0; i < 600; i++) {
+            repository.save(new Transaction((double) i, currentTimeMillis - i * 100));
+        }
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+
+        // when
+        final long removedTransactions = repository.removeStaleTransactions(instant);
+
+        // then
+        assertThat(removedTransactions, is(0L));
+        assertThat(repository.bucketCount(), is(lessThanOrEqualTo(150)));
+        assertThat(repository.getCount(instant), is(600L));
+        assertThat(repository.getSum(instant), closeTo(179700.0, 0.001));
+        assertThat(repository.getMaximum(instant), closeTo(599.0, 0.001));
+        assertThat(repository.getVariance(instant), closeTo(29999.9167, 0.001));
+    }
+
+    @Test
+    public void shouldReportLargerEdgeErrorWhenWindowStartsInCoarseBucket() {
+        // having
+        final long currentTimeMillis = 1_000_000;
+        final InMemoryTransactionRepository fineRepository = new InMemoryTransactionRepository(100, 60000);
+        repository = new InMemoryTransactionRepository(coarseBucketProperties());
+        for (int i = 0; i < 600; i++) {
+            fineRepository.save(new Transaction(1.0, currentTimeMillis - i * 100));
+            repository.save(new Transaction(1.0, currentTimeMillis - i * 100));
+        }
+        fineRepository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis));
+        repository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis));
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis).plusMillis(500);
+
+        // when
+        final long fineEdgeError = fineRepository.getWindowEdgeErrorInMilliSeconds(instant);
+        final long coarseEdgeError = repository.getWindowEdgeErrorInMilliSeconds(instant);
+
+        // then
+        assertThat(fineEdgeError, is(0L));
+        assertThat(fineRepository.getCount(instant), is(596L));
+        assertThat(coarseEdgeError, is(500L));
+        assertThat(repository.getCount(instant), is(600L));
+    }
+
+    @Test
+    public void shouldRemoveCoarseBucketOnlyWhenItEndsBeforeRetention() {
+        // having
+        final long currentTimeMillis = 1_000_000;
+        repository = new InMemoryTransactionRepository(coarseBucketProperties());
+        for (int i = 0; i < 600; i++) {
+            repository.save(new Transaction(1.0, currentTimeMillis - i * 100));
+        }
+        repository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis));
+        final Instant acrossCoarseBucket = Instant.ofEpochMilli(currentTimeMillis).plusMillis(500);
+        final Instant afterCoarseBucket = Instant.ofEpochMilli(currentTimeMillis).plusMillis(1000);
+
+        // when
+        final long removedWhileAcross = repository.removeStaleTransactions(acrossCoarseBucket);
+        final long countWhileAcross = repository.getCount(acrossCoarseBucket);
+        final long removedAfter = repository.removeStaleTransactions(afterCoarseBucket);
+
+        // then
+        assertThat(removedWhileAcross, is(0L));
+        assertThat(countWhileAcross, is(600L));
+        assertThat(removedAfter, is(9L));
+        assertThat(repository.getCount(afterCoarseBucket), is(591L));
+    }
+
+    @Test
+    public void shouldRecordAllTransactionsWhenSavingWhileMergingBuckets() throws InterruptedException {
+        // having
+        final long currentTimeMillis = 1_000_000;
+        repository = new InMemoryTransactionRepository(coarseBucketProperties());
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < 3; thread++) {
+            final int offset = thread;
+            tasks.add(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    repository.save(new Transaction(1.0, currentTimeMillis - (i * 3 + offset) % 30000));
+                }
+                return null;
+            });
+        }
+        tasks.add(() -> {
+            for (int i = 0; i < 200; i++) {
+                repository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis + i * 100));
+            }
+            return null;
+        });
+
+        // when
+        executorService.invokeAll(tasks);
+        executorService.shutdown();
+        repository.removeStaleTransactions(Instant.ofEpochMilli(currentTimeMillis + 20000));
+
+        // then
+        assertThat(repository.getCount(Instant.ofEpochMilli(currentTimeMillis + 20000)), is(30000L));
+    }
+
+    @Test
+    public void shouldGetAllTransactionsWhenReadingWhileMergingBuckets() throws InterruptedException {
+        // having
+        final long currentTimeMillis = 1_000_000;
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        final Set<Long> counts = ConcurrentHashMap.newKeySet();
+
+        // when
+        for (int run = 0; run < 200; run++) {
+            final InMemoryTransactionRepository coarseRepository =
+                    new InMemoryTransactionRepository(coarseBucketProperties());
+            for (int i = 0; i < 600; i++) {
+                coarseRepository.save(new Transaction(1.0, currentTimeMillis - i * 100));
+            }
+            final AtomicBoolean merging = new AtomicBoolean(true);
+            final Thread reader = new Thread(() -> {
+                while (merging.get()) {
+                    counts.add(coarseRepository.getCount(instant));
+                }
+            });
+            reader.start();
+            coarseRepository.removeStaleTransactions(instant);
+            merging.set(false);
+            reader.join();
+        }
+
+        // then
+        assertThat(counts, contains(600L));
+    }
+
+    private static RepositoryProperties coarseBucketProperties() {
+        final RepositoryProperties properties = RepositoryProperties.of(100, 60000);
+        properties.setCoarsePrecisionInMs(1000);
+        properties.setMaxBuckets(150);
+        return properties;
+    }
+
     @Test
     public void shouldGetZeroSumWhenNoTransactions() {
         final Instant current = Instant.now();
@@ -166,6 +543,18 @@ public class InMemoryTransactionRepositoryTest {
         assertThat(repository.getCount(current), is(0L));
     }
 
+    private static double twoPassVariance(double[] amounts) {
+        double mean = 0.0;
+        for (double amount : amounts) {
+            mean += amount / amounts.length;
+        }
+        double squaredDeviations = 0.0;
+        for (double amount : amounts) {
+            squaredDeviations += (amount - mean) * (amount - mean);
+        }
+        return squaredDeviations / amounts.length;
+    }
+
     private <T> T fetchValue(Future<T> future) {
         try {
             return future.get();
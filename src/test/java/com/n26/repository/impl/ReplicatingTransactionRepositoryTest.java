@@ -0,0 +1,179 @@
+package com.n26.repository.impl;
+
+import com.n26.model.Transaction;
+import com.n26.repository.NoRecordedTransactionException;
+import com.n26.repository.ReadOnlyRepositoryException;
+import com.n26.repository.RepositoryProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReplicatingTransactionRepositoryTest {
+
+    private ReplicatingTransactionRepository primary;
+
+    private ReplicatingTransactionRepository replica;
+
+    private long currentTimeMillis;
+
+    private Instant instant;
+
+    @Before
+    public void setUp() {
+        final RepositoryProperties properties = new RepositoryProperties();
+        properties.setShards(2);
+        primary = new ReplicatingTransactionRepository(properties, false);
+        replica = new ReplicatingTransactionRepository(properties, true);
+        currentTimeMillis = System.currentTimeMillis();
+        instant = Instant.ofEpochMilli(currentTimeMillis);
+    }
+
+    @Test
+    public void shouldGetSameStatisticsOnReplicaWhenChangesApplied() throws IOException,
+            NoRecordedTransactionException {
+        // having
+        for (int i = 1; i <= 50; i++) {
+            primary.save(new Transaction((double) i, currentTimeMillis - (i % 10) * 1000, "account-" + (i % 7)));
+        }
+
+        // when
+        final long oldestChange = replicate();
+
+        // then
+        assertThat(oldestChange, greaterThan(0L));
+        assertThat(replica.getCount(instant), is(50L));
+        assertThat(replica.getSum(instant), closeTo(1275.0, 0.001));
+        assertThat(replica.getVariance(instant), closeTo(primary.getVariance(instant), 1e-9));
+        assertThat(replica.getDistinctAccountCount(instant), is(7L));
+        assertThat(replica.getLargestTransactions(instant).get(0).getAmount(), is(50.0));
+    }
+
+    @Test
+    public void shouldWriteChangedBucketOnceWhenSavedSeveralTimes() throws IOException,
+            NoRecordedTransactionException {
+        // having
+        replicate();
+        for (int i = 0; i < 10; i++) {
+            primary.save(new Transaction(10.0, currentTimeMillis));
+        }
+
+        // when
+        final ByteArrayOutputStream changes = new ByteArrayOutputStream();
+        final int writtenBuckets = primary.writeChanges(new DataOutputStream(changes));
+        replica.applyChanges(new DataInputStream(new ByteArrayInputStream(changes.toByteArray())));
+
+        // then
+        assertThat(writtenBuckets, is(1));
+        assertThat(replica.getCount(instant), is(10L));
+        assertThat(replica.getMaximum(instant), is(10.0));
+    }
+
+    @Test
+    public void shouldWriteNothingWhenNoChanges() throws IOException {
+        // having
+        primary.save(new Transaction(10.0, currentTimeMillis));
+        replicate();
+
+        // when
+        final int writtenBuckets = primary.writeChanges(new DataOutputStream(new ByteArrayOutputStream()));
+
+        // then
+        assertThat(writtenBuckets, is(0));
+    }
+
+    @Test
+    public void shouldResetReplicaWhenPrimaryDeletedAll() throws IOException {
+        // having
+        primary.save(new Transaction(10.0, currentTimeMillis - 5000));
+        replicate();
+
+        // when
+        primary.deleteAll();
+        primary.save(new Transaction(20.0, currentTimeMillis));
+        replicate();
+
+        // then
+        assertThat(replica.getCount(instant), is(1L));
+        assertThat(replica.getSum(instant), closeTo(20.0, 0.001));
+    }
+
+    @Test
+    public void shouldReplaceStateOfReplicaWhenFullResyncRequested() throws IOException {
+        // having
+        primary.save(new Transaction(10.0, currentTimeMillis));
+        replicate();
+        replicate();
+
+        // when
+        primary.requestFullResync();
+        replicate();
+
+        // then
+        assertThat(replica.getCount(instant), is(1L));
+    }
+
+    @Test
+    public void shouldKeepServingStatisticsOfReplicaWhileApplyingFullResync() throws IOException,
+            InterruptedException {
+        // having
+        for (int i = 0; i < 10; i++) {
+            primary.save(new Transaction(1.0, currentTimeMillis - i * 1000));
+        }
+        replicate();
+        final AtomicBoolean resyncing = new AtomicBoolean(true);
+        final AtomicLong smallestCount = new AtomicLong(Long.MAX_VALUE);
+        final Thread reader = new Thread(() -> {
+            while (resyncing.get()) {
+                smallestCount.accumulateAndGet(replica.getCount(instant), Math::min);
+            }
+        });
+        reader.start();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            primary.requestFullResync();
+            replicate();
+        }
+        resyncing.set(false);
+        reader.join();
+
+        // then
+        assertThat(smallestCount.get(), is(10L));
+    }
+
+    @Test(expected = ReadOnlyRepositoryException.class)
+    public void shouldThrowWhenSavingToReadOnlyRepository() {
+        replica.save(new Transaction(10.0, currentTimeMillis));
+    }
+
+    @Test(expected = ReadOnlyRepositoryException.class)
+    public void shouldThrowWhenDeletingFromReadOnlyRepository() {
+        replica.deleteAll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenCoarseBucketsConfigured() {
+        final RepositoryProperties properties = RepositoryProperties.of(100, 60000);
+        properties.setCoarsePrecisionInMs(1000);
+        new ReplicatingTransactionRepository(properties, false);
+    }
+
+    private long replicate() throws IOException {
+        final ByteArrayOutputStream changes = new ByteArrayOutputStream();
+        primary.writeChanges(new DataOutputStream(changes));
+        return replica.applyChanges(new DataInputStream(new ByteArrayInputStream(changes.toByteArray())));
+    }
+}
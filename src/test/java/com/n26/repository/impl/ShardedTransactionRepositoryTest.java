@@ -0,0 +1,209 @@
+package com.n26.repository.impl;
+
+import com.n26.model.BucketStatistics;
+import com.n26.model.Transaction;
+import com.n26.repository.NoRecordedTransactionException;
+import com.n26.repository.RepositoryProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class ShardedTransactionRepositoryTest {
+
+    private ShardedTransactionRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new ShardedTransactionRepository(4, 1000, 60000);
+    }
+
+    @Test
+    public void shouldMergeStatisticsOfAllShardsWhenConcurrentTransactions() throws InterruptedException,
+            NoRecordedTransactionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis).plusMillis(30000);
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        final List<Callable<Void>> multipleRequests = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            final double amount = i;
+            multipleRequests.add(() -> {
+                repository.save(new Transaction(amount, currentTimeMillis));
+                return null;
+            });
+        }
+
+        // when
+        executorService.invokeAll(multipleRequests);
+        executorService.shutdown();
+
+        // then
+        assertThat(repository.getCount(instant), is(100L));
+        assertThat(repository.getSum(instant), closeTo(5050.0, 0.001));
+        assertThat(repository.getAverage(instant), closeTo(50.5, 0.001));
+        assertThat(repository.getMinimum(instant), closeTo(1.0, 0.001));
+        assertThat(repository.getMaximum(instant), closeTo(100.0, 0.001));
+        assertThat(repository.getLargestTransactions(instant).stream().map(Transaction::getAmount)
+                .collect(Collectors.toList()), contains(100.0, 99.0, 98.0, 97.0, 96.0, 95.0, 94.0, 93.0, 92.0, 91.0));
+    }
+
+    @Test
+    public void shouldMergeBucketStatisticsOfAllShards() throws InterruptedException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        final List<Callable<Void>> multipleRequests = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            final double amount = i;
+            multipleRequests.add(() -> {
+                repository.save(new Transaction(amount, currentTimeMillis));
+                return null;
+            });
+        }
+        executorService.invokeAll(multipleRequests);
+        executorService.shutdown();
+
+        // when
+        final List<BucketStatistics> buckets = repository.getBucketStatistics(
+                Instant.ofEpochMilli(currentTimeMillis));
+
+        // then
+        assertThat(buckets.size(), is(1));
+        assertThat(buckets.get(0).getCount(), is(100L));
+        assertThat(buckets.get(0).getSum(), closeTo(5050.0, 0.001));
+        assertThat(buckets.get(0).getMin(), closeTo(1.0, 0.001));
+        assertThat(buckets.get(0).getMax(), closeTo(100.0, 0.001));
+        assertThat(buckets.get(0).getSquaredDeviations(), closeTo(83325.0, 0.001));
+    }
+
+    @Test
+    public void shouldRemoveStaleTransactionsFromAllShards() throws InterruptedException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        final List<Callable<Void>> multipleRequests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            multipleRequests.add(() -> {
+                repository.save(new Transaction(10.0, currentTimeMillis));
+                return null;
+            });
+        }
+        executorService.invokeAll(multipleRequests);
+        executorService.shutdown();
+
+        // when
+        final long removedTransactions = repository.removeStaleTransactions(
+                Instant.ofEpochMilli(currentTimeMillis).plusMillis(61000));
+
+        // then
+        assertThat(removedTransactions, is(20L));
+    }
+
+    @Test
+    public void shouldDeleteTransactionsOfAllShardsWhenDeletingAll() throws InterruptedException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        final List<Callable<Void>> multipleRequests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            multipleRequests.add(() -> {
+                repository.save(new Transaction(10.0, currentTimeMillis));
+                return null;
+            });
+        }
+        executorService.invokeAll(multipleRequests);
+
+        // when
+        repository.deleteAll();
+        executorService.invokeAll(multipleRequests.subList(0, 5));
+        executorService.shutdown();
+
+        // then
+        assertThat(repository.getCount(instant), is(5L));
+    }
+
+    @Test
+    public void shouldKeepBucketsOfAllShardsWithinBudget() throws InterruptedException {
+        // having
+        final long currentTimeMillis = 1_000_000;
+        final RepositoryProperties properties = RepositoryProperties.of(100, 60000);
+        properties.setShards(4);
+        properties.setCoarsePrecisionInMs(1000);
+        properties.setMaxBuckets(600);
+        repository = new ShardedTransactionRepository(properties);
+        final List<Thread> writers = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 600; i++) {
+                    repository.save(new Transaction(1.0, currentTimeMillis - i * 100));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        final Instant instant = Instant.ofEpochMilli(currentTimeMillis);
+
+        // when
+        repository.removeStaleTransactions(instant);
+
+        // then
+        assertThat(repository.bucketCount(), is(lessThanOrEqualTo(600)));
+        assertThat(repository.getCount(instant), is(2400L));
+    }
+
+    @Test
+    public void shouldRemoveStaleTransactionsConcurrentlyWithSaves() throws InterruptedException, ExecutionException {
+        // having
+        final long currentTimeMillis = System.currentTimeMillis();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final List<Callable<Void>> multipleRequests = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            multipleRequests.add(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    final long now = currentTimeMillis + i;
+                    repository.save(new Transaction(1.0, now - 59990));
+                    repository.removeStaleTransactions(Instant.ofEpochMilli(now));
+                }
+                return null;
+            });
+        }
+
+        // when
+        final List<Future<Void>> results = executorService.invokeAll(multipleRequests);
+        executorService.shutdown();
+
+        // then
+        for (Future<Void> result : results) {
+            result.get();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenShardCountIsNotPositive() {
+        new ShardedTransactionRepository(0, 1000, 60000);
+    }
+}
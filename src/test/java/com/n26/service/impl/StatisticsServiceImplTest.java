@@ -1,5 +1,76 @@
 package com.n26.service.impl;
 
+import com.n26.model.WindowStatistics;
+import com.n26.repository.NoRecordedTransactionException;
+import com.n26.repository.TransactionRepository;
+import com.n26.service.OutOfRetentionException;
+import com.n26.vo.StatisticsVO;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
 public class StatisticsServiceImplTest {
 
-}
\ No newline at end of file
+    @InjectMocks
+    private StatisticsServiceImpl service;
+
+    @Mock
+    private TransactionRepository repository;
+
+    @Mock
+    private Clock clock;
+
+    private final Instant now = Instant.now();
+
+    @Before
+    public void setUp() {
+        when(clock.instant()).thenReturn(now);
+    }
+
+    @Test
+    public void shouldGetStatisticsOfWindowEndingAtGivenInstantWhenRetained() throws NoRecordedTransactionException,
+            OutOfRetentionException {
+        // having
+        final Instant fiveMinutesAgo = now.minusSeconds(300);
+        when(repository.getTransactionValidityInMilliSeconds()).thenReturn(60000L);
+        when(repository.getRetentionInMilliSeconds()).thenReturn(600000L);
+        when(repository.getStatistics(fiveMinutesAgo)).thenReturn(new WindowStatistics(3, 30.0, 5.0, 15.0, 50.0, 2, 0));
+
+        // when
+        final StatisticsVO statistics = service.getStatistics(fiveMinutesAgo);
+
+        // then
+        assertThat(statistics.getCount(), is(3L));
+        assertThat(statistics.getSum(), is(30.0));
+        assertThat(statistics.getAvg(), is(10.0));
+        assertThat(statistics.getVariance(), is(50.0 / 3));
+        assertThat(statistics.getStddev(), is(Math.sqrt(50.0 / 3)));
+    }
+
+    @Test(expected = OutOfRetentionException.class)
+    public void shouldThrowWhenWindowIsOlderThanRetention() throws NoRecordedTransactionException,
+            OutOfRetentionException {
+        // having
+        when(repository.getTransactionValidityInMilliSeconds()).thenReturn(60000L);
+        when(repository.getRetentionInMilliSeconds()).thenReturn(600000L);
+
+        // when
+        service.getStatistics(now.minusSeconds(541));
+    }
+
+    @Test(expected = OutOfRetentionException.class)
+    public void shouldThrowWhenWindowIsInFuture() throws NoRecordedTransactionException, OutOfRetentionException {
+        service.getStatistics(now.plusSeconds(1));
+    }
+}
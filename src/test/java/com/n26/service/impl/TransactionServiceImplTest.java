@@ -1,26 +1,30 @@
 package com.n26.service.impl;
 
 import com.n26.repository.TransactionRepository;
-import com.n26.service.StaleTransactionException;
+import com.n26.service.TransactionValidationResult;
 import com.n26.vo.TransactionVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.time.Clock;
 import java.time.Instant;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TransactionServiceImplTest {
 
-    @InjectMocks
     private TransactionServiceImpl service;
 
     @Mock
@@ -29,44 +33,75 @@ public class TransactionServiceImplTest {
     @Mock
     private Clock clock;
 
+    private MeterRegistry meterRegistry;
+
     @Before
     public void setUp() throws Exception {
         when(repository.getTransactionValidityInMilliSeconds()).thenReturn(60000L);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new TransactionServiceImpl(repository, clock, meterRegistry);
     }
 
     @Test
-    public void shouldNotThrowWhenSavingValidTransaction() throws StaleTransactionException {
+    public void shouldAcceptWhenSavingValidTransaction() {
         // having
         final Instant now = Instant.now();
         final TransactionVO transaction = new TransactionVO(15.0, now.toEpochMilli());
         when(clock.instant()).thenReturn(now.plusSeconds(60));
 
         // when
-        service.save(transaction);
+        final TransactionValidationResult result = service.save(transaction);
 
         // then
+        assertThat(result, is(TransactionValidationResult.ACCEPTED));
         verify(repository).save(argThat(tx -> tx.getAmount() == 15.0 && tx.getTimestamp() == now.toEpochMilli()));
     }
 
-    @Test(expected = StaleTransactionException.class)
-    public void shouldThrowWhenSavingStaleTransaction() throws StaleTransactionException {
+    @Test
+    public void shouldRejectWhenSavingStaleTransaction() {
         // having
         final Instant now = Instant.now();
         final TransactionVO transaction = new TransactionVO(15.0, now.toEpochMilli());
         when(clock.instant()).thenReturn(now.plusSeconds(61));
 
         // when
-        service.save(transaction);
+        final TransactionValidationResult result = service.save(transaction);
+
+        // then
+        assertThat(result, is(TransactionValidationResult.STALE));
+        assertThat(rejectedCount("stale"), is(1.0));
+        verify(repository, never()).save(any());
     }
 
-    @Test(expected = StaleTransactionException.class)
-    public void shouldThrowWhenSavingInvalidTransaction() throws StaleTransactionException {
+    @Test
+    public void shouldRejectWhenSavingInvalidTransaction() {
         // having
         final Instant now = Instant.now();
         final TransactionVO transaction = new TransactionVO(15.0, now.plusSeconds(60).toEpochMilli());
         when(clock.instant()).thenReturn(now);
 
         // when
-        service.save(transaction);
+        final TransactionValidationResult result = service.save(transaction);
+
+        // then
+        assertThat(result, is(TransactionValidationResult.IN_FUTURE));
+        assertThat(rejectedCount("in_future"), is(1.0));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    public void shouldDeleteAllTransactionsOfRepository() {
+        // when
+        service.deleteAll();
+
+        // then
+        verify(repository).deleteAll();
+    }
+
+    private double rejectedCount(String reason) {
+        return meterRegistry.get(TransactionServiceImpl.REJECTED_TRANSACTIONS_METRIC)
+                .tag("reason", reason)
+                .counter()
+                .count();
     }
-}
\ No newline at end of file
+}
@@ -10,4 +10,12 @@ public class StatisticsDTO {
     public Long count;
 
     public Double avg;
+
+    public Double variance;
+
+    public Double stddev;
+
+    public Long uniqueAccounts;
+
+    public Long edgeErrorInMs;
 }
@@ -5,6 +5,9 @@ public class TransactionDTO {
 
     public Long timestamp;
 
+    public TransactionDTO() {
+    }
+
     public TransactionDTO(Double amount, Long timestamp) {
         this.amount = amount;
         this.timestamp = timestamp;